@@ -17,7 +17,13 @@ import com.questlogs.listeners.BlockPlaceListener;
 import com.questlogs.listeners.CraftItemListener;
 import com.questlogs.listeners.MobKillListener;
 import com.questlogs.listeners.PlaytimeListener;
+import com.questlogs.listeners.PlayerDataListener;
+import com.questlogs.listeners.ChunkListener;
 import com.questlogs.gui.QuestBookListener;
+import com.questlogs.managers.ActivityManager;
+import com.questlogs.managers.ExplorationManager;
+import com.questlogs.managers.PlacedBlockManager;
+import com.questlogs.managers.QuestFileWatcher;
 import com.questlogs.managers.QuestManager;
 import com.questlogs.managers.PlayerProgressManager;
 import com.questlogs.managers.ConfigManager;
@@ -37,7 +43,12 @@ public class QuestLogsPlugin extends JavaPlugin {
     private RewardManager rewardManager;
     private StatsManager statsManager;
     private ChallengeManager challengeManager;
+    private ActivityManager activityManager;
+    private ExplorationManager explorationManager;
+    private PlacedBlockManager placedBlockManager;
+    private QuestFileWatcher questFileWatcher;
     private PlaytimeListener playtimeListener;
+    private ExplorationListener explorationListener;
     private Logger logger;
 
     @Override
@@ -65,6 +76,14 @@ public class QuestLogsPlugin extends JavaPlugin {
         statsManager.loadStats();
         challengeManager.loadChallenges();
         
+        // Listener activity is applied once per tick
+        activityManager = new ActivityManager(this);
+        activityManager.start();
+        explorationManager = new ExplorationManager(this);
+        placedBlockManager = new PlacedBlockManager(this);
+        questFileWatcher = new QuestFileWatcher(this);
+        questFileWatcher.start();
+        
         // Register commands
         getCommand("quest").setExecutor(new QuestCommand(this));
         getCommand("questadmin").setExecutor(new QuestAdminCommand(this));
@@ -81,7 +100,8 @@ public class QuestLogsPlugin extends JavaPlugin {
         getCommand("challengeadmin").setTabCompleter(new ChallengeAdminTabCompleter(this));
         
         // Register event listeners
-        getServer().getPluginManager().registerEvents(new ExplorationListener(this), this);
+        explorationListener = new ExplorationListener(this);
+        getServer().getPluginManager().registerEvents(explorationListener, this);
         getServer().getPluginManager().registerEvents(new BlockBreakListener(this), this);
         getServer().getPluginManager().registerEvents(new BlockPlaceListener(this), this);
         getServer().getPluginManager().registerEvents(new CraftItemListener(this), this);
@@ -89,15 +109,35 @@ public class QuestLogsPlugin extends JavaPlugin {
         playtimeListener = new PlaytimeListener(this);
         getServer().getPluginManager().registerEvents(playtimeListener, this);
         getServer().getPluginManager().registerEvents(new QuestBookListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerDataListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(this), this);
         
         logger.info("QuestLogs has been enabled!");
     }
     
     @Override
     public void onDisable() {
+        if (questFileWatcher != null) {
+            questFileWatcher.shutdown(); // Don't pick up our own quests.yml save
+        }
+        
+        // Apply activity from the last tick before saving
+        if (explorationListener != null) {
+            explorationListener.foldMovements(); // Movement not yet folded by the batch timer
+        }
+        if (activityManager != null) {
+            activityManager.shutdown();
+        }
+        
         // Save all data
+        if (explorationManager != null) {
+            explorationManager.shutdown(); // Write visited regions
+        }
+        if (placedBlockManager != null) {
+            placedBlockManager.shutdown(); // Flush placed block regions
+        }
         if (progressManager != null) {
-            progressManager.saveProgress();
+            progressManager.shutdown(); // Flush pending progress writes
         }
         if (questManager != null) {
             questManager.saveQuests();
@@ -106,7 +146,7 @@ public class QuestLogsPlugin extends JavaPlugin {
             statsManager.close(); // Close database connection properly
         }
         if (challengeManager != null) {
-            challengeManager.shutdown(); // Stop challenge scheduler
+            challengeManager.shutdown(); // Stop challenges and save them to resume
         }
         
         logger.info("QuestLogs has been disabled!");
@@ -140,6 +180,18 @@ public class QuestLogsPlugin extends JavaPlugin {
         return challengeManager;
     }
     
+    public ActivityManager getActivityManager() {
+        return activityManager;
+    }
+    
+    public ExplorationManager getExplorationManager() {
+        return explorationManager;
+    }
+    
+    public PlacedBlockManager getPlacedBlockManager() {
+        return placedBlockManager;
+    }
+    
     public PlaytimeListener getPlaytimeListener() {
         return playtimeListener;
     }
@@ -7,6 +7,9 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ChallengeAdminCommand implements CommandExecutor {
     
     private final QuestLogsPlugin plugin;
@@ -31,7 +34,7 @@ public class ChallengeAdminCommand implements CommandExecutor {
             case "start":
                 return handleStart(sender, args);
             case "stop":
-                return handleStop(sender);
+                return handleStop(sender, args);
             case "list":
                 return handleList(sender);
             case "reload":
@@ -50,11 +53,11 @@ public class ChallengeAdminCommand implements CommandExecutor {
         
         String challengeId = args[1];
         
-        // Check if challenge already active
-        if (plugin.getChallengeManager().isChallengeActive()) {
-            Challenge active = plugin.getChallengeManager().getActiveChallenge();
-            sender.sendMessage(ChatColor.RED + "A challenge is already active: " + active.getName());
-            sender.sendMessage(ChatColor.YELLOW + "Use '/challengeadmin stop' first to end it");
+        // Other challenges may keep running, just not this one twice
+        Challenge active = plugin.getChallengeManager().getActiveChallenge(challengeId);
+        if (active != null) {
+            sender.sendMessage(ChatColor.RED + "This challenge is already active: " + active.getName());
+            sender.sendMessage(ChatColor.YELLOW + "Use '/challengeadmin stop " + challengeId + "' first to end it");
             return true;
         }
         
@@ -69,17 +72,29 @@ public class ChallengeAdminCommand implements CommandExecutor {
         return true;
     }
     
-    private boolean handleStop(CommandSender sender) {
+    private boolean handleStop(CommandSender sender, String[] args) {
         if (!plugin.getChallengeManager().isChallengeActive()) {
             sender.sendMessage(ChatColor.YELLOW + "No active challenge to stop");
             return true;
         }
         
-        Challenge active = plugin.getChallengeManager().getActiveChallenge();
-        String challengeName = active.getName();
+        // Without an ID every running challenge ends
+        List<Challenge> stopping = new ArrayList<>();
+        if (args.length < 2) {
+            stopping.addAll(plugin.getChallengeManager().getActiveChallenges());
+        } else {
+            Challenge active = plugin.getChallengeManager().getActiveChallenge(args[1]);
+            if (active == null) {
+                sender.sendMessage(ChatColor.RED + "Challenge is not active: " + args[1]);
+                return true;
+            }
+            stopping.add(active);
+        }
         
-        plugin.getChallengeManager().endChallenge();
-        sender.sendMessage(ChatColor.GREEN + "✓ Stopped challenge: " + challengeName);
+        for (Challenge active : stopping) {
+            plugin.getChallengeManager().endChallenge(active.getId());
+            sender.sendMessage(ChatColor.GREEN + "✓ Stopped challenge: " + active.getName());
+        }
         
         return true;
     }
@@ -103,7 +118,9 @@ public class ChallengeAdminCommand implements CommandExecutor {
                 String name = poolSection.getString(challengeId + ".name", "Unknown");
                 String description = poolSection.getString(challengeId + ".description", "");
                 String type = poolSection.getString(challengeId + ".type", "");
-                String target = poolSection.getString(challengeId + ".target", "");
+                String target = poolSection.isList(challengeId + ".target") ?
+                    String.join(", ", poolSection.getStringList(challengeId + ".target")) :
+                    poolSection.getString(challengeId + ".target", "");
                 int duration = poolSection.getInt(challengeId + ".duration", 300);
                 
                 sender.sendMessage(ChatColor.AQUA + "• " + ChatColor.WHITE + challengeId);
@@ -135,7 +152,7 @@ public class ChallengeAdminCommand implements CommandExecutor {
         sender.sendMessage(ChatColor.YELLOW + "" + ChatColor.BOLD + "Challenge Admin Commands");
         sender.sendMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         sender.sendMessage(ChatColor.AQUA + "/challengeadmin start <id>" + ChatColor.GRAY + " - Start a specific challenge");
-        sender.sendMessage(ChatColor.AQUA + "/challengeadmin stop" + ChatColor.GRAY + " - Stop the active challenge");
+        sender.sendMessage(ChatColor.AQUA + "/challengeadmin stop [id]" + ChatColor.GRAY + " - Stop one or all active challenges");
         sender.sendMessage(ChatColor.AQUA + "/challengeadmin list" + ChatColor.GRAY + " - List all available challenges");
         sender.sendMessage(ChatColor.AQUA + "/challengeadmin reload" + ChatColor.GRAY + " - Reload challenges config");
         sender.sendMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━");
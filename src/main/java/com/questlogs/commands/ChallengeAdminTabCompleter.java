@@ -1,6 +1,7 @@
 package com.questlogs.commands;
 
 import com.questlogs.QuestLogsPlugin;
+import com.questlogs.models.Challenge;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
@@ -51,6 +52,15 @@ public class ChallengeAdminTabCompleter implements TabCompleter {
             }
         }
         
+        if (args.length == 2 && args[0].equalsIgnoreCase("stop")) {
+            // Second argument for 'stop': a running challenge
+            String partial = args[1].toLowerCase();
+            return plugin.getChallengeManager().getActiveChallenges().stream()
+                .map(Challenge::getId)
+                .filter(id -> id.toLowerCase().startsWith(partial))
+                .collect(Collectors.toList());
+        }
+        
         return completions;
     }
 }
@@ -8,8 +8,10 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class ChallengeCommand implements CommandExecutor {
     
@@ -21,14 +23,30 @@ public class ChallengeCommand implements CommandExecutor {
     
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-        Challenge activeChallenge = plugin.getChallengeManager().getActiveChallenge();
+        // Challenges the sender could never take part in are left out
+        List<Challenge> challenges = new ArrayList<>();
+        for (Challenge challenge : plugin.getChallengeManager().getActiveChallenges()) {
+            if (challenge.isActive() && (challenge.getPermission() == null || sender.hasPermission(challenge.getPermission()))) {
+                challenges.add(challenge);
+            }
+        }
         
-        if (activeChallenge == null || !activeChallenge.isActive()) {
+        if (challenges.isEmpty()) {
             sender.sendMessage(ChatColor.YELLOW + "No active challenge at the moment!");
             sender.sendMessage(ChatColor.GRAY + "Challenges start automatically. Stay tuned!");
             return true;
         }
         
+        // Keep the output short when several challenges run at once
+        int places = challenges.size() == 1 ? 10 : 5;
+        for (Challenge challenge : challenges) {
+            showChallenge(sender, challenge, places);
+        }
+        
+        return true;
+    }
+    
+    private void showChallenge(CommandSender sender, Challenge activeChallenge, int places) {
         // Display challenge info
         sender.sendMessage("");
         sender.sendMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━");
@@ -36,41 +54,36 @@ public class ChallengeCommand implements CommandExecutor {
         sender.sendMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         sender.sendMessage(ChatColor.AQUA + activeChallenge.getName());
         sender.sendMessage(ChatColor.GRAY + activeChallenge.getDescription());
+        if (activeChallenge.getWorlds() != null) {
+            sender.sendMessage(ChatColor.GRAY + "Only counts in: " + String.join(", ", activeChallenge.getWorlds()));
+        }
         sender.sendMessage("");
         sender.sendMessage(ChatColor.YELLOW + "Time Remaining: " + ChatColor.WHITE + 
                          formatTime(activeChallenge.getRemainingSeconds()));
         sender.sendMessage("");
         
         // Show leaderboard
-        List<Map.Entry<String, Integer>> leaderboard = plugin.getChallengeManager().getLeaderboard();
+        List<Map.Entry<UUID, Long>> leaderboard = activeChallenge.getProgress().top(places);
         if (leaderboard.isEmpty()) {
             sender.sendMessage(ChatColor.GRAY + "No participants yet!");
         } else {
             sender.sendMessage(ChatColor.YELLOW + "Current Leaderboard:");
-            for (int i = 0; i < Math.min(10, leaderboard.size()); i++) {
-                Map.Entry<String, Integer> entry = leaderboard.get(i);
+            for (int i = 0; i < leaderboard.size(); i++) {
+                Map.Entry<UUID, Long> entry = leaderboard.get(i);
                 String medal = getMedal(i + 1);
                 ChatColor color = getPlaceColor(i + 1);
-                sender.sendMessage(color + "  " + medal + " " + entry.getKey() + 
+                sender.sendMessage(color + "  " + medal + " " + 
+                                 plugin.getChallengeManager().getPlayerName(activeChallenge, entry.getKey()) + 
                                  ChatColor.GRAY + " - " + ChatColor.YELLOW + entry.getValue());
             }
             
-            // Show player's position if not in top 10
+            // Show player's position if not in the top places
             if (sender instanceof Player) {
                 Player player = (Player) sender;
-                String playerName = player.getName();
-                int playerPosition = -1;
-                int playerScore = 0;
-                
-                for (int i = 0; i < leaderboard.size(); i++) {
-                    if (leaderboard.get(i).getKey().equals(playerName)) {
-                        playerPosition = i + 1;
-                        playerScore = leaderboard.get(i).getValue();
-                        break;
-                    }
-                }
+                int playerPosition = activeChallenge.getPlayerRank(player.getUniqueId());
+                long playerScore = activeChallenge.getPlayerProgress(player.getUniqueId());
                 
-                if (playerPosition > 10) {
+                if (playerPosition > places) {
                     sender.sendMessage("");
                     sender.sendMessage(ChatColor.GRAY + "Your position: " + ChatColor.WHITE + 
                                      "#" + playerPosition + ChatColor.GRAY + " - " + 
@@ -84,8 +97,6 @@ public class ChallengeCommand implements CommandExecutor {
         
         sender.sendMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         sender.sendMessage("");
-        
-        return true;
     }
     
     private String getMedal(int place) {
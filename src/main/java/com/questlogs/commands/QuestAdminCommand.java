@@ -36,9 +36,18 @@ public class QuestAdminCommand implements CommandExecutor {
         
         switch (subCommand) {
             case "reload":
-                plugin.getQuestManager().loadQuests();
-                plugin.getProgressManager().loadProgress();
-                sender.sendMessage(ChatColor.GREEN + "Quest data reloaded successfully!");
+                plugin.getConfigManager().reloadConfig();
+                sender.sendMessage(ChatColor.YELLOW + "Reloading quests...");
+                // Quests are parsed in the background and swapped in on a later tick
+                plugin.getQuestManager().reloadQuestsAsync(swapped -> {
+                    if (!swapped) {
+                        sender.sendMessage(ChatColor.RED + "Quests were not reloaded, check the console for errors.");
+                        return;
+                    }
+                    plugin.getProgressManager().saveProgress(); // Don't lose unsaved progress on reload
+                    plugin.getProgressManager().loadProgress();
+                    sender.sendMessage(ChatColor.GREEN + "Quest data reloaded successfully!");
+                });
                 break;
             case "complete":
                 handleCompleteCommand(sender, args);
@@ -46,6 +55,12 @@ public class QuestAdminCommand implements CommandExecutor {
             case "reset":
                 handleResetCommand(sender, args);
                 break;
+            case "cache":
+                sender.sendMessage(ChatColor.GOLD + "=== Stats Cache ===");
+                for (String line : plugin.getStatsManager().getCacheInfo()) {
+                    sender.sendMessage(ChatColor.YELLOW + line);
+                }
+                break;
             default:
                 sendHelpMessage(sender);
                 break;
@@ -59,6 +74,7 @@ public class QuestAdminCommand implements CommandExecutor {
         sender.sendMessage(ChatColor.YELLOW + "/questadmin reload - Reload quest configuration");
         sender.sendMessage(ChatColor.YELLOW + "/questadmin complete <player> <quest_id> - Complete a quest for a player");
         sender.sendMessage(ChatColor.YELLOW + "/questadmin reset <player> <quest_id> - Reset a player's progress on a quest");
+        sender.sendMessage(ChatColor.YELLOW + "/questadmin cache - Show stats cache usage");
     }
     
     private void handleCompleteCommand(CommandSender sender, String[] args) {
@@ -28,6 +28,7 @@ public class QuestAdminTabCompleter implements TabCompleter {
             completions.add("reload");
             completions.add("complete");
             completions.add("reset");
+            completions.add("cache");
             return filterCompletions(completions, args[0]);
         }
         
@@ -1,29 +1,115 @@
 package com.questlogs.database;
 
 import com.questlogs.QuestLogsPlugin;
+import com.questlogs.models.PlayerQuestProgress;
 import com.questlogs.models.PlayerStats;
+import com.questlogs.models.ProgressChange;
+import com.questlogs.models.StatsDelta;
 
 import java.io.File;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
- * Manages SQLite database connection and operations for player statistics
+ * Manages SQLite database connection and operations for player statistics.
+ * The connection is owned by a single database thread; every load, save and
+ * query is queued to it and answered with a CompletableFuture.
  */
 public class DatabaseManager {
     
+    /**
+     * Work that runs on the database thread
+     */
+    @FunctionalInterface
+    public interface DatabaseJob<T> {
+        T run() throws SQLException;
+    }
+    
     private final QuestLogsPlugin plugin;
     private final Logger logger;
     private final File databaseFile;
     private Connection connection;
     
+    // Jobs waiting for the database thread. Bounded so a stalled disk slows
+    // submitters down instead of growing the queue without limit.
+    private final BlockingQueue<Runnable> jobs;
+    private final Thread worker;
+    private volatile boolean closed;
+    
     public DatabaseManager(QuestLogsPlugin plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
         this.databaseFile = new File(plugin.getDataFolder(), "stats.db");
+        this.jobs = new ArrayBlockingQueue<>(Math.max(16, plugin.getConfig().getInt("database-queue-size", 1024)));
         
         initializeDatabase();
+        
+        this.worker = new Thread(this::runJobs, "QuestLogs-Database");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+    
+    /**
+     * Queue a job for the database thread. Blocks while the queue is full.
+     * Jobs submitted from the database thread itself run immediately.
+     */
+    public <T> CompletableFuture<T> submit(DatabaseJob<T> job) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(job.run());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        
+        if (Thread.currentThread() == worker) {
+            task.run();
+            return future;
+        }
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("Database is closed"));
+            return future;
+        }
+        
+        try {
+            jobs.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    /**
+     * Database thread loop, runs jobs until close() has drained the queue
+     */
+    private void runJobs() {
+        while (!closed || !jobs.isEmpty()) {
+            try {
+                Runnable job = jobs.poll(1, TimeUnit.SECONDS);
+                if (job != null) {
+                    job.run();
+                }
+            } catch (InterruptedException e) {
+                // close() wakes us up, the loop condition decides whether to stop
+            }
+        }
+        
+        if (connection != null) {
+            try {
+                connection.close();
+                logger.info("Database connection closed");
+            } catch (SQLException e) {
+                logger.warning("Failed to close database connection");
+                e.printStackTrace();
+            }
+        }
     }
     
     /**
@@ -118,6 +204,25 @@ public class DatabaseManager {
             "FOREIGN KEY (uuid) REFERENCES players(uuid) ON DELETE CASCADE" +
             ")";
         
+        // Quest progress: plain counters per quest, plus per block/mob objective counters
+        String createQuestProgressTable = 
+            "CREATE TABLE IF NOT EXISTS quest_progress (" +
+            "uuid TEXT," +
+            "quest_id TEXT," +
+            "amount INTEGER DEFAULT 0," +
+            "PRIMARY KEY (uuid, quest_id)" +
+            ")";
+        
+        String createObjectiveProgressTable = 
+            "CREATE TABLE IF NOT EXISTS objective_progress (" +
+            "uuid TEXT," +
+            "quest_id TEXT," +
+            "objective_type TEXT," +
+            "target TEXT," +
+            "amount INTEGER DEFAULT 0," +
+            "PRIMARY KEY (uuid, quest_id, objective_type, target)" +
+            ")";
+        
         // Create indexes for better performance
         String createIndexBlocksMined = "CREATE INDEX IF NOT EXISTS idx_blocks_mined_uuid ON blocks_mined(uuid)";
         String createIndexBlocksBroken = "CREATE INDEX IF NOT EXISTS idx_blocks_broken_uuid ON blocks_broken(uuid)";
@@ -132,6 +237,8 @@ public class DatabaseManager {
             stmt.execute(createBlocksPlacedTable);
             stmt.execute(createItemsCraftedTable);
             stmt.execute(createMobsKilledTable);
+            stmt.execute(createQuestProgressTable);
+            stmt.execute(createObjectiveProgressTable);
             
             stmt.execute(createIndexBlocksMined);
             stmt.execute(createIndexBlocksBroken);
@@ -146,7 +253,11 @@ public class DatabaseManager {
     /**
      * Load player statistics from database
      */
-    public PlayerStats loadPlayerStats(UUID playerId) {
+    public CompletableFuture<PlayerStats> loadPlayerStats(UUID playerId) {
+        return submit(() -> queryPlayerStats(playerId));
+    }
+    
+    private PlayerStats queryPlayerStats(UUID playerId) {
         PlayerStats stats = new PlayerStats(playerId);
         String uuidString = playerId.toString();
         
@@ -218,71 +329,234 @@ public class DatabaseManager {
     }
     
     /**
-     * Save player statistics to database
+     * Apply the stat changes of every player in a single transaction.
+     * Counters are added onto the stored values, so only the keys that
+     * changed since the last flush are written.
+     * @return Future completing with true if the changes were written, false if they should be retried
+     */
+    public CompletableFuture<Boolean> saveStats(Map<UUID, StatsDelta> deltas) {
+        return submit(() -> {
+            try {
+                inTransaction(() -> {
+                    for (Map.Entry<UUID, StatsDelta> entry : deltas.entrySet()) {
+                        if (!entry.getValue().isEmpty()) {
+                            writePlayerStats(entry.getKey().toString(), entry.getValue());
+                        }
+                    }
+                    return null;
+                });
+                return true;
+            } catch (SQLException e) {
+                logger.warning("Failed to save stats for " + deltas.size() + " players");
+                e.printStackTrace();
+                return false;
+            }
+        });
+    }
+    
+    private void writePlayerStats(String uuidString, StatsDelta delta) throws SQLException {
+        // Add counters onto the player's row, creating it if it is missing
+        String upsert = "INSERT INTO players (uuid, total_blocks_explored, quests_completed, challenges_won, challenges_participated, playtime, first_seen, last_seen) " +
+                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                      "ON CONFLICT(uuid) DO UPDATE SET " +
+                      "total_blocks_explored = total_blocks_explored + excluded.total_blocks_explored, " +
+                      "quests_completed = quests_completed + excluded.quests_completed, " +
+                      "challenges_won = challenges_won + excluded.challenges_won, " +
+                      "challenges_participated = challenges_participated + excluded.challenges_participated, " +
+                      "playtime = playtime + excluded.playtime, " +
+                      "last_seen = excluded.last_seen";
+        try (PreparedStatement stmt = connection.prepareStatement(upsert)) {
+            stmt.setString(1, uuidString);
+            stmt.setInt(2, delta.getBlocksExplored());
+            stmt.setInt(3, delta.getQuestsCompleted());
+            stmt.setInt(4, delta.getChallengesWon());
+            stmt.setInt(5, delta.getChallengesParticipated());
+            stmt.setLong(6, delta.getPlaytime());
+            stmt.setLong(7, delta.getFirstSeen());
+            stmt.setLong(8, delta.getLastSeen());
+            stmt.executeUpdate();
+        }
+        
+        saveStatDeltas("blocks_mined", "block_type", uuidString, delta.getBlocksMined());
+        saveStatDeltas("blocks_broken", "block_type", uuidString, delta.getBlocksBroken());
+        saveStatDeltas("blocks_placed", "block_type", uuidString, delta.getBlocksPlaced());
+        saveStatDeltas("items_crafted", "item_type", uuidString, delta.getItemsCrafted());
+        saveStatDeltas("mobs_killed", "mob_type", uuidString, delta.getMobsKilled());
+    }
+    
+    /**
+     * Run a job in a transaction, rolling back if it throws. Database thread only.
+     */
+    private <T> T inTransaction(DatabaseJob<T> job) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            T result = job.run();
+            connection.commit();
+            return result;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+    
+    /**
+     * Add stat map changes onto the stored rows
+     */
+    private void saveStatDeltas(String tableName, String typeColumn, String uuid, Map<String, Integer> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        String upsert = "INSERT INTO " + tableName + " (uuid, " + typeColumn + ", amount) VALUES (?, ?, ?) " +
+                       "ON CONFLICT(uuid, " + typeColumn + ") DO UPDATE SET amount = amount + excluded.amount";
+        try (PreparedStatement stmt = connection.prepareStatement(upsert)) {
+            for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+                stmt.setString(1, uuid);
+                stmt.setString(2, entry.getKey());
+                stmt.setInt(3, entry.getValue());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    /**
+     * Delete every stored statistic for a player
+     */
+    public CompletableFuture<Void> deletePlayerStats(UUID playerId) {
+        String[] tables = {"blocks_mined", "blocks_broken", "blocks_placed", "items_crafted", "mobs_killed", "players"};
+        
+        return submit(() -> {
+            try {
+                inTransaction(() -> {
+                    for (String table : tables) {
+                        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM " + table + " WHERE uuid = ?")) {
+                            stmt.setString(1, playerId.toString());
+                            stmt.executeUpdate();
+                        }
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                logger.warning("Failed to delete stats for player " + playerId);
+                e.printStackTrace();
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Load a player's quest progress from database
      */
-    public void savePlayerStats(PlayerStats stats) {
-        String uuidString = stats.getPlayerId().toString();
+    public CompletableFuture<PlayerQuestProgress> loadQuestProgress(UUID playerId) {
+        return submit(() -> queryQuestProgress(playerId));
+    }
+    
+    private PlayerQuestProgress queryQuestProgress(UUID playerId) {
+        PlayerQuestProgress progress = new PlayerQuestProgress(playerId);
+        String uuidString = playerId.toString();
         
         try {
-            // Save basic player stats
-            String upsert = "INSERT OR REPLACE INTO players (uuid, total_blocks_explored, quests_completed, challenges_won, challenges_participated, playtime, first_seen, last_seen) " +
-                          "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(upsert)) {
+            String questQuery = "SELECT quest_id, amount FROM quest_progress WHERE uuid = ?";
+            try (PreparedStatement stmt = connection.prepareStatement(questQuery)) {
                 stmt.setString(1, uuidString);
-                stmt.setInt(2, stats.getTotalBlocksExplored());
-                stmt.setInt(3, stats.getQuestsCompleted());
-                stmt.setInt(4, stats.getChallengesWon());
-                stmt.setInt(5, stats.getChallengesParticipated());
-                stmt.setLong(6, stats.getPlaytime());
-                stmt.setLong(7, stats.getFirstSeen());
-                stmt.setLong(8, stats.getLastSeen());
-                stmt.executeUpdate();
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    progress.getQuestProgress().put(rs.getString("quest_id"), rs.getInt("amount"));
+                }
             }
             
-            // Save blocks mined
-            saveStatMap("blocks_mined", "block_type", uuidString, stats.getBlocksMined());
-            
-            // Save blocks broken
-            saveStatMap("blocks_broken", "block_type", uuidString, stats.getBlocksBroken());
-            
-            // Save blocks placed
-            saveStatMap("blocks_placed", "block_type", uuidString, stats.getBlocksPlaced());
-            
-            // Save items crafted
-            saveStatMap("items_crafted", "item_type", uuidString, stats.getItemsCrafted());
-            
-            // Save mobs killed
-            saveStatMap("mobs_killed", "mob_type", uuidString, stats.getMobsKilled());
-            
+            String objectiveQuery = "SELECT quest_id, objective_type, target, amount FROM objective_progress WHERE uuid = ?";
+            try (PreparedStatement stmt = connection.prepareStatement(objectiveQuery)) {
+                stmt.setString(1, uuidString);
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    String questId = rs.getString("quest_id");
+                    String target = rs.getString("target");
+                    int amount = rs.getInt("amount");
+                    ProgressChange.Kind kind = ProgressChange.Kind.MOB.name().equals(rs.getString("objective_type")) 
+                        ? ProgressChange.Kind.MOB : ProgressChange.Kind.BLOCK;
+                    progress.loadObjective(kind, questId, target, amount);
+                }
+            }
         } catch (SQLException e) {
-            logger.warning("Failed to save stats for player " + stats.getPlayerId());
+            logger.warning("Failed to load quest progress for player " + playerId);
             e.printStackTrace();
         }
+        
+        return progress;
     }
     
     /**
-     * Save a stat map to database
+     * Write the recorded progress changes of each snapshot in one transaction.
+     * Only the counters that changed are touched, and additions are applied
+     * in SQL so the row never has to be read first.
+     * @return Future failing with the SQLException if nothing was written, so the changes can be retried
      */
-    private void saveStatMap(String tableName, String typeColumn, String uuid, Map<String, Integer> statMap) throws SQLException {
-        // Delete old entries
-        String delete = "DELETE FROM " + tableName + " WHERE uuid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(delete)) {
-            stmt.setString(1, uuid);
-            stmt.executeUpdate();
-        }
+    public CompletableFuture<Void> saveQuestProgressChanges(Collection<PlayerQuestProgress> snapshots) {
+        return submit(() -> {
+            writeQuestProgressChanges(snapshots);
+            return null;
+        });
+    }
+    
+    private void writeQuestProgressChanges(Collection<PlayerQuestProgress> snapshots) throws SQLException {
+        String addQuest = "INSERT INTO quest_progress (uuid, quest_id, amount) VALUES (?, ?, ?) " +
+                         "ON CONFLICT(uuid, quest_id) DO UPDATE SET amount = amount + excluded.amount";
+        String setQuest = "INSERT INTO quest_progress (uuid, quest_id, amount) VALUES (?, ?, ?) " +
+                         "ON CONFLICT(uuid, quest_id) DO UPDATE SET amount = excluded.amount";
+        String addObjective = "INSERT INTO objective_progress (uuid, quest_id, objective_type, target, amount) VALUES (?, ?, ?, ?, ?) " +
+                             "ON CONFLICT(uuid, quest_id, objective_type, target) DO UPDATE SET amount = amount + excluded.amount";
+        String setObjective = "INSERT INTO objective_progress (uuid, quest_id, objective_type, target, amount) VALUES (?, ?, ?, ?, ?) " +
+                             "ON CONFLICT(uuid, quest_id, objective_type, target) DO UPDATE SET amount = excluded.amount";
         
-        // Insert new entries
-        if (!statMap.isEmpty()) {
-            String insert = "INSERT INTO " + tableName + " (uuid, " + typeColumn + ", amount) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(insert)) {
-                for (Map.Entry<String, Integer> entry : statMap.entrySet()) {
-                    stmt.setString(1, uuid);
-                    stmt.setString(2, entry.getKey());
-                    stmt.setInt(3, entry.getValue());
-                    stmt.addBatch();
+        try {
+            inTransaction(() -> {
+                try (PreparedStatement addQuestStmt = connection.prepareStatement(addQuest);
+                     PreparedStatement setQuestStmt = connection.prepareStatement(setQuest);
+                     PreparedStatement addObjectiveStmt = connection.prepareStatement(addObjective);
+                     PreparedStatement setObjectiveStmt = connection.prepareStatement(setObjective)) {
+                    
+                    for (PlayerQuestProgress snapshot : snapshots) {
+                        String uuidString = snapshot.getPlayerId().toString();
+                        for (ProgressChange change : snapshot.getChanges()) {
+                            if (!change.isAbsolute() && change.getAmount() == 0) {
+                                continue;
+                            }
+                            
+                            if (change.getKind() == ProgressChange.Kind.QUEST) {
+                                PreparedStatement stmt = change.isAbsolute() ? setQuestStmt : addQuestStmt;
+                                stmt.setString(1, uuidString);
+                                stmt.setString(2, change.getQuestId());
+                                stmt.setInt(3, change.getAmount());
+                                stmt.addBatch();
+                            } else {
+                                PreparedStatement stmt = change.isAbsolute() ? setObjectiveStmt : addObjectiveStmt;
+                                stmt.setString(1, uuidString);
+                                stmt.setString(2, change.getQuestId());
+                                stmt.setString(3, change.getKind().name());
+                                stmt.setString(4, change.getTarget());
+                                stmt.setInt(5, change.getAmount());
+                                stmt.addBatch();
+                            }
+                        }
+                    }
+                    
+                    addQuestStmt.executeBatch();
+                    setQuestStmt.executeBatch();
+                    addObjectiveStmt.executeBatch();
+                    setObjectiveStmt.executeBatch();
                 }
-                stmt.executeBatch();
-            }
+                return null;
+            });
+        } catch (SQLException e) {
+            logger.warning("Failed to save quest progress for " + snapshots.size() + " players");
+            e.printStackTrace();
+            throw e;
         }
     }
     
@@ -305,7 +579,11 @@ public class DatabaseManager {
     /**
      * Get all player UUIDs from database
      */
-    public Set<UUID> getAllPlayerIds() {
+    public CompletableFuture<Set<UUID>> getAllPlayerIds() {
+        return submit(this::queryAllPlayerIds);
+    }
+    
+    private Set<UUID> queryAllPlayerIds() {
         Set<UUID> playerIds = new HashSet<>();
         
         try {
@@ -333,7 +611,11 @@ public class DatabaseManager {
     /**
      * Get top players by challenges won
      */
-    public List<Map.Entry<UUID, Integer>> getTopChallengeWinners(int limit) {
+    public CompletableFuture<List<Map.Entry<UUID, Integer>>> getTopChallengeWinners(int limit) {
+        return submit(() -> queryTopChallengeWinners(limit));
+    }
+    
+    private List<Map.Entry<UUID, Integer>> queryTopChallengeWinners(int limit) {
         List<Map.Entry<UUID, Integer>> topPlayers = new ArrayList<>();
         
         try {
@@ -366,7 +648,11 @@ public class DatabaseManager {
     /**
      * Get top players by challenges participated
      */
-    public List<Map.Entry<UUID, Integer>> getTopChallengeParticipants(int limit) {
+    public CompletableFuture<List<Map.Entry<UUID, Integer>>> getTopChallengeParticipants(int limit) {
+        return submit(() -> queryTopChallengeParticipants(limit));
+    }
+    
+    private List<Map.Entry<UUID, Integer>> queryTopChallengeParticipants(int limit) {
         List<Map.Entry<UUID, Integer>> topPlayers = new ArrayList<>();
         
         try {
@@ -399,7 +685,11 @@ public class DatabaseManager {
     /**
      * Get top players by playtime
      */
-    public List<Map.Entry<UUID, Long>> getTopByPlaytime(int limit) {
+    public CompletableFuture<List<Map.Entry<UUID, Long>>> getTopByPlaytime(int limit) {
+        return submit(() -> queryTopByPlaytime(limit));
+    }
+    
+    private List<Map.Entry<UUID, Long>> queryTopByPlaytime(int limit) {
         List<Map.Entry<UUID, Long>> topPlayers = new ArrayList<>();
         
         try {
@@ -432,7 +722,11 @@ public class DatabaseManager {
     /**
      * Get top players by blocks explored
      */
-    public List<Map.Entry<UUID, Integer>> getTopByBlocksExplored(int limit) {
+    public CompletableFuture<List<Map.Entry<UUID, Integer>>> getTopByBlocksExplored(int limit) {
+        return submit(() -> queryTopByBlocksExplored(limit));
+    }
+    
+    private List<Map.Entry<UUID, Integer>> queryTopByBlocksExplored(int limit) {
         List<Map.Entry<UUID, Integer>> topPlayers = new ArrayList<>();
         
         try {
@@ -465,7 +759,11 @@ public class DatabaseManager {
     /**
      * Get top players by quests completed
      */
-    public List<Map.Entry<UUID, Integer>> getTopByQuestsCompleted(int limit) {
+    public CompletableFuture<List<Map.Entry<UUID, Integer>>> getTopByQuestsCompleted(int limit) {
+        return submit(() -> queryTopByQuestsCompleted(limit));
+    }
+    
+    private List<Map.Entry<UUID, Integer>> queryTopByQuestsCompleted(int limit) {
         List<Map.Entry<UUID, Integer>> topPlayers = new ArrayList<>();
         
         try {
@@ -498,7 +796,11 @@ public class DatabaseManager {
     /**
      * Get top players for a specific block type mined
      */
-    public List<Map.Entry<UUID, Integer>> getTopByBlockType(String blockType, int limit) {
+    public CompletableFuture<List<Map.Entry<UUID, Integer>>> getTopByBlockType(String blockType, int limit) {
+        return submit(() -> queryTopByBlockType(blockType, limit));
+    }
+    
+    private List<Map.Entry<UUID, Integer>> queryTopByBlockType(String blockType, int limit) {
         List<Map.Entry<UUID, Integer>> topPlayers = new ArrayList<>();
         
         try {
@@ -532,7 +834,11 @@ public class DatabaseManager {
     /**
      * Get top players for a specific mob type killed
      */
-    public List<Map.Entry<UUID, Integer>> getTopByMobType(String mobType, int limit) {
+    public CompletableFuture<List<Map.Entry<UUID, Integer>>> getTopByMobType(String mobType, int limit) {
+        return submit(() -> queryTopByMobType(mobType, limit));
+    }
+    
+    private List<Map.Entry<UUID, Integer>> queryTopByMobType(String mobType, int limit) {
         List<Map.Entry<UUID, Integer>> topPlayers = new ArrayList<>();
         
         try {
@@ -564,22 +870,24 @@ public class DatabaseManager {
     }
     
     /**
-     * Close database connection
+     * Finish every queued job, then close the connection on the database thread
      */
     public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-                logger.info("Database connection closed");
-            } catch (SQLException e) {
-                logger.warning("Failed to close database connection");
-                e.printStackTrace();
-            }
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            logger.warning("Database thread did not finish its queued jobs in time");
         }
     }
     
     /**
-     * Get database connection (for advanced queries)
+     * Get database connection (for advanced queries).
+     * Only use it inside a job passed to {@link #submit(DatabaseJob)}.
      */
     public Connection getConnection() {
         return connection;
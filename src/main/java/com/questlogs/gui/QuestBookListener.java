@@ -31,7 +31,7 @@ public class QuestBookListener implements Listener {
         Player player = event.getPlayer();
         
         // Give quest book if they don't have one and config allows it
-        if (plugin.getConfig().getBoolean("give-questbook-on-join", true)) {
+        if (plugin.getConfigManager().getSettings().giveQuestbookOnJoin()) {
             if (!hasQuestBook(player)) {
                 giveQuestBook(player);
             }
@@ -0,0 +1,36 @@
+package com.questlogs.listeners;
+
+import com.questlogs.QuestLogsPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Opens and closes the placed block regions along with the chunks that use them
+ */
+public class ChunkListener implements Listener {
+    
+    private final QuestLogsPlugin plugin;
+    
+    public ChunkListener(QuestLogsPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        plugin.getPlacedBlockManager().onChunkLoad(event.getChunk());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        plugin.getPlacedBlockManager().onChunkUnload(event.getChunk());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        plugin.getPlacedBlockManager().onWorldUnload(event.getWorld());
+    }
+}
@@ -1,37 +1,58 @@
 package com.questlogs.listeners;
 
 import com.questlogs.QuestLogsPlugin;
-import com.questlogs.models.Quest;
-import com.questlogs.models.QuestType;
+import com.questlogs.managers.ExplorationManager;
+import com.questlogs.models.ActivityType;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
 
 public class ExplorationListener implements Listener {
     
     private final QuestLogsPlugin plugin;
-    private final Map<UUID, Location> lastLocations;
-    private final Map<UUID, Set<String>> completedQuests; // Track which quests each player has completed
+    private final Map<UUID, Movement> movements;
+    
+    /**
+     * Last block a player was in and the new blocks they entered since the last fold.
+     * Moving only touches these ints, stats/challenges/quests see one sum per batch.
+     */
+    private static final class Movement {
+        private final Player player;
+        private int blockX;
+        private int blockY;
+        private int blockZ;
+        private int pending;
+        private ExplorationManager.Region region; // Region the player is in, new-ground-only mode
+        
+        private Movement(Player player, Location location) {
+            this.player = player;
+            this.blockX = location.getBlockX();
+            this.blockY = location.getBlockY();
+            this.blockZ = location.getBlockZ();
+        }
+    }
     
     public ExplorationListener(QuestLogsPlugin plugin) {
         this.plugin = plugin;
-        this.lastLocations = new HashMap<>();
-        this.completedQuests = new HashMap<>();
+        this.movements = new HashMap<>();
+        
+        // Fold the counted blocks into stats, challenges and quests every few ticks
+        long batchTicks = Math.max(1, plugin.getConfig().getInt("exploration-batch-ticks", 20));
+        Bukkit.getScheduler().runTaskTimer(plugin, this::foldMovements, batchTicks, batchTicks);
     }
     
     @EventHandler
     public void onPlayerMove(PlayerMoveEvent event) {
-        Player player = event.getPlayer();
-        UUID playerId = player.getUniqueId();
         Location from = event.getFrom();
         Location to = event.getTo();
         
@@ -42,100 +63,74 @@ public class ExplorationListener implements Listener {
             return;
         }
         
-        Location lastLocation = lastLocations.get(playerId);
+        Player player = event.getPlayer();
+        Movement movement = movements.get(player.getUniqueId());
+        if (movement == null) {
+            movement = new Movement(player, to);
+            movements.put(player.getUniqueId(), movement);
+            countBlock(movement, to.getWorld(), to.getBlockX(), to.getBlockZ());
+            return;
+        }
         
         // Check if this is a new block
-        if (lastLocation == null || !isSameBlock(lastLocation, to)) {
-            lastLocations.put(playerId, to);
+        int x = to.getBlockX();
+        int y = to.getBlockY();
+        int z = to.getBlockZ();
+        if (movement.blockX != x || movement.blockY != y || movement.blockZ != z) {
+            boolean sameColumn = movement.blockX == x && movement.blockZ == z;
+            movement.blockX = x;
+            movement.blockY = y;
+            movement.blockZ = z;
             
-            // Update quest progress for explore blocks quests
-            updateExplorationProgress(player, to);
+            if (!sameColumn || !plugin.getExplorationManager().isUniqueOnly()) {
+                countBlock(movement, to.getWorld(), x, z);
+            }
         }
     }
     
-    private boolean isSameBlock(Location loc1, Location loc2) {
-        return loc1.getBlockX() == loc2.getBlockX() &&
-               loc1.getBlockY() == loc2.getBlockY() &&
-               loc1.getBlockZ() == loc2.getBlockZ();
+    private void countBlock(Movement movement, World world, int x, int z) {
+        ExplorationManager explorationManager = plugin.getExplorationManager();
+        if (!explorationManager.isUniqueOnly()) {
+            movement.pending++;
+            return;
+        }
+        
+        // New ground only: count columns this player has never stood in
+        ExplorationManager.Region region = movement.region;
+        if (region == null || !region.covers(world.getUID(), x, z)) {
+            region = explorationManager.getRegion(movement.player.getUniqueId(), world, x, z);
+            movement.region = region;
+        }
+        if (region.visit(x, z)) {
+            movement.pending++;
+        }
     }
     
-    private void updateExplorationProgress(Player player, Location location) {
-        UUID playerId = player.getUniqueId();
-        Set<String> playerCompletedQuests = completedQuests.computeIfAbsent(playerId, k -> new HashSet<>());
-        
-        // Track cumulative stats
-        plugin.getStatsManager().getPlayerStats(playerId).addBlocksExplored(1);
-        
-        // Track for challenges
-        plugin.getChallengeManager().addProgress(player.getName(), "EXPLORE", "ANY", 1);
-        
-        // Loop through all active EXPLORE_BLOCKS quests
-        for (Quest quest : plugin.getQuestManager().getAllQuests()) {
-            if (quest.getType() != QuestType.EXPLORE_BLOCKS || !quest.isActive()) {
-                continue;
-            }
-            
-            String questId = quest.getId();
-            
-            // Skip if quest is locked (prerequisites not met)
-            if (!plugin.getQuestManager().isQuestAvailable(playerId, questId)) {
-                continue;
-            }
-            
-            // Skip if player has already completed this quest
-            if (playerCompletedQuests.contains(questId)) {
-                continue;
-            }
-            
-            int currentProgress = plugin.getProgressManager().getPlayerProgress(playerId, questId);
-            
-            // Skip if already completed
-            if (currentProgress >= quest.getTargetAmount()) {
-                playerCompletedQuests.add(questId);
-                continue;
-            }
-            
-            // Add 1 to progress
-            plugin.getProgressManager().addPlayerProgress(playerId, questId, 1);
-            currentProgress++;
-            
-            // Send progress notifications at intervals
-            int notificationInterval = plugin.getConfig().getInt("notification-interval", 100);
-            if (currentProgress % notificationInterval == 0 && currentProgress < quest.getTargetAmount()) {
-                player.sendMessage("§7[Quest] §e" + quest.getName() + ": §a" + currentProgress + "§7/§f" + quest.getTargetAmount() + " blocks explored");
-            }
-            
-            // Check if quest is complete
-            if (currentProgress >= quest.getTargetAmount()) {
-                playerCompletedQuests.add(questId);
-                // Call quest completion asynchronously to not block the main thread
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    onQuestComplete(player, quest);
-                });
-            }
+    @EventHandler(priority = EventPriority.LOW)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // Before PlayerDataListener drains the activity of the leaving player
+        Movement movement = movements.remove(event.getPlayer().getUniqueId());
+        if (movement != null) {
+            foldMovement(movement);
         }
     }
     
-    private void onQuestComplete(Player player, Quest quest) {
-        // Track quest completion in stats
-        plugin.getStatsManager().getPlayerStats(player.getUniqueId()).incrementQuestsCompleted();
-        
-        // Give rewards to player and get formatted reward string
-        String rewardText = plugin.getRewardManager().giveRewards(player, quest);
-        
-        // Show completion message with actual rewards
-        player.sendMessage("§6§l=========================");
-        player.sendMessage("§6§l  Quest Complete! §a§l✓");
-        player.sendMessage("§6§l=========================");
-        player.sendMessage("§e" + quest.getName());
-        player.sendMessage("§aRewards: §f" + rewardText);
-        player.sendMessage("§6§l=========================");
+    /**
+     * Hand everyone's counted movement to the ActivityManager, also called on shutdown
+     */
+    public void foldMovements() {
+        for (Movement movement : movements.values()) {
+            foldMovement(movement);
+        }
+    }
+    
+    private void foldMovement(Movement movement) {
+        if (movement.pending == 0) {
+            return;
+        }
         
-        // Broadcast completion if enabled
-        plugin.getRewardManager().broadcastCompletion(player, quest);
+        // Stats, challenges and quests are updated once per tick by the activity manager
+        plugin.getActivityManager().record(movement.player, ActivityType.EXPLORE, 0, movement.pending);
+        movement.pending = 0;
     }
 }
-
-
-
-
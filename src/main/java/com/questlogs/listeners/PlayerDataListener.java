@@ -0,0 +1,50 @@
+package com.questlogs.listeners;
+
+import com.questlogs.QuestLogsPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Loads player data while they are logging in and releases it after they leave
+ */
+public class PlayerDataListener implements Listener {
+    
+    private final QuestLogsPlugin plugin;
+    
+    public PlayerDataListener(QuestLogsPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Runs off the main thread, so disk and database reads here never stall the server
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        
+        plugin.getProgressManager().preloadPlayer(event.getUniqueId());
+        plugin.getStatsManager().prefetchPlayer(event.getUniqueId());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        // Whitelist, bans and a full server are checked after pre-login, drop what was loaded for nothing
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            plugin.getProgressManager().discardPreloaded(event.getPlayer().getUniqueId());
+            plugin.getStatsManager().discardPrefetched(event.getPlayer().getUniqueId());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // Apply anything still buffered while the player is online to receive rewards
+        plugin.getActivityManager().drain();
+        plugin.getProgressManager().scheduleUnload(event.getPlayer().getUniqueId());
+        plugin.getStatsManager().discardPrefetched(event.getPlayer().getUniqueId());
+        plugin.getExplorationManager().unloadPlayer(event.getPlayer().getUniqueId());
+    }
+}
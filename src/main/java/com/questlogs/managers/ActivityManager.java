@@ -0,0 +1,457 @@
+package com.questlogs.managers;
+
+import com.questlogs.QuestLogsPlugin;
+import com.questlogs.models.ActivityType;
+import com.questlogs.models.ChallengeIndex;
+import com.questlogs.models.ObjectiveLayout;
+import com.questlogs.models.OrdinalCounter;
+import com.questlogs.models.PlayerStats;
+import com.questlogs.models.Quest;
+import com.questlogs.models.QuestIndex;
+import com.questlogs.models.QuestType;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Collects player activity from the listeners and applies it once per tick.
+ * Listeners only append (player, action, key, amount) to a preallocated buffer.
+ * A task on the next tick adds the buffer up per player and key, then updates
+ * stats, challenges and quest progress once per key and sends one progress
+ * message per objective, so a vein of 64 ores is a single update.
+ * Everything here runs on the main thread.
+ */
+public class ActivityManager {
+    
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+    
+    // Breaking a block can progress both kinds of quest
+    private static final QuestType[] BREAK_QUEST_TYPES = {QuestType.MINE_BLOCKS, QuestType.BREAK_BLOCKS};
+    
+    private final QuestLogsPlugin plugin;
+    private final Logger logger;
+    
+    // Buffered activity, one entry per index. Reset after every drain.
+    private final Player[] players;
+    private final ActivityType[] types;
+    private final int[] keys;
+    private final int[] amounts;
+    private int size;
+    
+    // Quest activity held back while the player's progress is still loading
+    private final Map<UUID, PlayerActivity> deferredQuests = new LinkedHashMap<>();
+    
+    private BukkitTask drainTask;
+    
+    /**
+     * One player's activity in a drain, summed per type and key
+     */
+    private static final class PlayerActivity {
+        private final Player player;
+        private final OrdinalCounter[] counts = new OrdinalCounter[ACTIVITY_TYPES.length];
+        
+        private PlayerActivity(Player player) {
+            this.player = player;
+        }
+        
+        private void add(ActivityType type, int key, int amount) {
+            OrdinalCounter counter = counts[type.ordinal()];
+            if (counter == null) {
+                counter = new OrdinalCounter();
+                counts[type.ordinal()] = counter;
+            }
+            counter.add(key, amount);
+        }
+    }
+    
+    public ActivityManager(QuestLogsPlugin plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        
+        int capacity = Math.max(64, plugin.getConfig().getInt("activity-buffer-size", 4096));
+        this.players = new Player[capacity];
+        this.types = new ActivityType[capacity];
+        this.keys = new int[capacity];
+        this.amounts = new int[capacity];
+    }
+    
+    /**
+     * Start applying buffered activity every tick
+     */
+    public void start() {
+        drainTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+    }
+    
+    /**
+     * Buffer an activity to be applied on the next drain
+     * @param key Material ordinal, EntityType ordinal, or 0 for exploration
+     */
+    public void record(Player player, ActivityType type, int key, int amount) {
+        if (size == players.length) {
+            drain(); // Buffer is full, apply what we have before taking more
+        }
+        players[size] = player;
+        types[size] = type;
+        keys[size] = key;
+        amounts[size] = amount;
+        size++;
+    }
+    
+    /**
+     * Apply all buffered activity now. Called every tick, when the buffer fills
+     * up and before a player's data is released on quit.
+     */
+    public void drain() {
+        if (!deferredQuests.isEmpty()) {
+            applyDeferredQuests();
+        }
+        if (size == 0) {
+            return;
+        }
+        
+        Map<UUID, PlayerActivity> batches = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Player player = players[i];
+            batches.computeIfAbsent(player.getUniqueId(), id -> new PlayerActivity(player))
+                .add(types[i], keys[i], amounts[i]);
+            players[i] = null; // Don't keep players that left alive in the buffer
+        }
+        size = 0;
+        
+        for (PlayerActivity batch : batches.values()) {
+            for (ActivityType type : ACTIVITY_TYPES) {
+                OrdinalCounter counts = batch.counts[type.ordinal()];
+                if (counts != null) {
+                    counts.forEach((key, amount) -> apply(batch.player, type, key, amount));
+                }
+            }
+        }
+    }
+    
+    private void apply(Player player, ActivityType type, int key, int amount) {
+        // Never let one bad update drop the rest of the tick
+        try {
+            applyStats(player, type, key, amount);
+            
+            // Track for challenges, skipped with a single volatile read while none is running
+            if (plugin.getChallengeManager().getChallengeIndex() != ChallengeIndex.EMPTY) {
+                plugin.getChallengeManager().addProgress(player, type, key, amount);
+            }
+            
+            // Quests need the stored progress, crediting a placeholder would complete finished quests again
+            if (plugin.getProgressManager().getPlayerProgress(player.getUniqueId()).isLoading()) {
+                deferredQuests.computeIfAbsent(player.getUniqueId(), id -> new PlayerActivity(player))
+                    .add(type, key, amount);
+            } else {
+                applyQuests(player, type, key, amount);
+            }
+        } catch (Exception e) {
+            logger.warning("Error applying " + type + " activity for " + player.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Apply held back quest activity for players whose progress has finished loading
+     */
+    private void applyDeferredQuests() {
+        Iterator<PlayerActivity> iterator = deferredQuests.values().iterator();
+        while (iterator.hasNext()) {
+            PlayerActivity batch = iterator.next();
+            if (!batch.player.isOnline()) {
+                iterator.remove(); // Left before the load finished, nobody to reward
+                continue;
+            }
+            if (plugin.getProgressManager().getPlayerProgress(batch.player.getUniqueId()).isLoading()) {
+                continue;
+            }
+            iterator.remove();
+            
+            for (ActivityType type : ACTIVITY_TYPES) {
+                OrdinalCounter counts = batch.counts[type.ordinal()];
+                if (counts != null) {
+                    counts.forEach((key, amount) -> {
+                        try {
+                            applyQuests(batch.player, type, key, amount);
+                        } catch (Exception e) {
+                            logger.warning("Error applying " + type + " activity for " + batch.player.getName() + ": " + e.getMessage());
+                            e.printStackTrace();
+                        }
+                    });
+                }
+            }
+        }
+    }
+    
+    private void applyStats(Player player, ActivityType type, int key, int amount) {
+        // Track cumulative stats for ALL activity, regardless of quests
+        PlayerStats stats = plugin.getStatsManager().getPlayerStats(player.getUniqueId());
+        switch (type) {
+            case MINE:
+                stats.addBlockMined(type.getMaterial(key), amount);
+                break;
+            case BREAK:
+                stats.addBlockBroken(type.getMaterial(key), amount);
+                break;
+            case PLACE:
+                stats.addBlockPlaced(type.getMaterial(key), amount);
+                break;
+            case CRAFT:
+                stats.addItemCrafted(type.getMaterial(key), amount);
+                break;
+            case KILL:
+                stats.addMobKilled(type.getEntityType(key), amount);
+                break;
+            case EXPLORE:
+                stats.addBlocksExplored(amount);
+                break;
+        }
+    }
+    
+    private void applyQuests(Player player, ActivityType type, int key, int amount) {
+        QuestIndex questIndex = plugin.getQuestManager().getQuestIndex();
+        switch (type) {
+            case MINE:
+            case BREAK: {
+                Material material = type.getMaterial(key);
+                for (QuestType questType : BREAK_QUEST_TYPES) {
+                    progressBlockQuests(player, questIndex.getQuests(questType, material), material.name(), amount, "Mined");
+                }
+                break;
+            }
+            case PLACE: {
+                Material material = type.getMaterial(key);
+                progressBlockQuests(player, questIndex.getQuests(QuestType.PLACE_BLOCKS, material), material.name(), amount, "Placed");
+                break;
+            }
+            case CRAFT: {
+                Material material = type.getMaterial(key);
+                progressBlockQuests(player, questIndex.getQuests(QuestType.CRAFT_ITEMS, material), material.name(), amount, "Crafted");
+                break;
+            }
+            case KILL: {
+                EntityType entityType = type.getEntityType(key);
+                progressMobQuests(player, questIndex.getQuests(entityType), entityType.name(), amount);
+                break;
+            }
+            case EXPLORE:
+                progressExploreQuests(player, questIndex.getQuests(QuestType.EXPLORE_BLOCKS), amount);
+                break;
+        }
+    }
+    
+    private void progressBlockQuests(Player player, List<Quest> quests, String blockType, int amount, String verb) {
+        PlayerProgressManager progressManager = plugin.getProgressManager();
+        UUID playerId = player.getUniqueId();
+        
+        for (Quest quest : quests) {
+            // Skip quests that are locked or already complete
+            if (!progressManager.isQuestOpen(playerId, quest.getId())) {
+                continue;
+            }
+            
+            ObjectiveLayout objectives = quest.getObjectiveLayout();
+            int slot = objectives.blockSlot(blockType);
+            if (slot < 0) {
+                continue; // This block is not a target for this quest
+            }
+            
+            // Skip if this block type has already reached its target
+            int targetAmount = objectives.getRequired(slot);
+            int currentProgress = progressManager.getObjectiveProgress(playerId, quest, slot);
+            if (currentProgress >= targetAmount) {
+                continue;
+            }
+            
+            // Don't count past the target
+            int progressToAdd = Math.min(amount, targetAmount - currentProgress);
+            progressManager.addObjectiveProgress(playerId, quest, slot, progressToAdd);
+            
+            // Check if this specific block target is complete
+            if (currentProgress + progressToAdd >= targetAmount) {
+                player.sendMessage(ChatColor.GREEN + "✓ " + verb + " " + targetAmount + " " +
+                                 formatName(blockType) + " for quest: " + ChatColor.GOLD + quest.getName());
+            }
+            
+            checkQuestComplete(player, quest);
+        }
+    }
+    
+    private void progressMobQuests(Player player, List<Quest> quests, String mobType, int amount) {
+        PlayerProgressManager progressManager = plugin.getProgressManager();
+        UUID playerId = player.getUniqueId();
+        
+        for (Quest quest : quests) {
+            // Skip quests that are locked or already complete
+            if (!progressManager.isQuestOpen(playerId, quest.getId())) {
+                continue;
+            }
+            
+            ObjectiveLayout objectives = quest.getObjectiveLayout();
+            int slot = objectives.mobSlot(mobType);
+            if (slot < 0) {
+                continue; // This mob is not a target for this quest
+            }
+            
+            // Skip if this mob type has already reached its target
+            int targetAmount = objectives.getRequired(slot);
+            int currentProgress = progressManager.getObjectiveProgress(playerId, quest, slot);
+            if (currentProgress >= targetAmount) {
+                continue;
+            }
+            
+            int progressToAdd = Math.min(amount, targetAmount - currentProgress);
+            progressManager.addObjectiveProgress(playerId, quest, slot, progressToAdd);
+            
+            // Show progress if enabled, once per tick however many were killed
+            if (plugin.getConfigManager().getSettings().showMobProgress()) {
+                player.sendMessage(ChatColor.YELLOW + "Quest Progress: " +
+                    ChatColor.AQUA + quest.getName() +
+                    ChatColor.GRAY + " - " + formatName(mobType) + ": " +
+                    ChatColor.GREEN + (currentProgress + progressToAdd) + ChatColor.GRAY + "/" +
+                    ChatColor.GREEN + targetAmount);
+            }
+            
+            checkQuestComplete(player, quest);
+        }
+    }
+    
+    private void progressExploreQuests(Player player, List<Quest> quests, int amount) {
+        PlayerProgressManager progressManager = plugin.getProgressManager();
+        UUID playerId = player.getUniqueId();
+        int notificationInterval = plugin.getConfigManager().getSettings().notificationInterval();
+        
+        for (Quest quest : quests) {
+            String questId = quest.getId();
+            
+            // Skip quests that are locked or already complete
+            if (!progressManager.isQuestOpen(playerId, questId)) {
+                continue;
+            }
+            
+            int currentProgress = progressManager.getPlayerProgress(playerId, questId);
+            int progressToAdd = Math.min(amount, quest.getTargetAmount() - currentProgress);
+            if (progressToAdd <= 0) {
+                continue;
+            }
+            progressManager.addPlayerProgress(playerId, questId, progressToAdd);
+            int newProgress = currentProgress + progressToAdd;
+            
+            // Send a progress notification if this batch crossed an interval
+            if (notificationInterval > 0 && newProgress / notificationInterval > currentProgress / notificationInterval &&
+                newProgress < quest.getTargetAmount()) {
+                int reached = newProgress / notificationInterval * notificationInterval;
+                player.sendMessage("§7[Quest] §e" + quest.getName() + ": §a" + reached + "§7/§f" + quest.getTargetAmount() + " blocks explored");
+            }
+            
+            checkQuestComplete(player, quest);
+        }
+    }
+    
+    private void checkQuestComplete(Player player, Quest quest) {
+        PlayerProgressManager progressManager = plugin.getProgressManager();
+        if (!progressManager.isQuestComplete(player.getUniqueId(), quest.getId())) {
+            return;
+        }
+        
+        // Close the quest first so nothing else counts towards it
+        progressManager.onQuestCompleted(player.getUniqueId(), quest.getId());
+        onQuestComplete(player, quest);
+    }
+    
+    private void onQuestComplete(Player player, Quest quest) {
+        // Track quest completion in stats
+        plugin.getStatsManager().getPlayerStats(player.getUniqueId()).incrementQuestsCompleted();
+        
+        // Give rewards to player and get formatted reward string
+        String rewardText = plugin.getRewardManager().giveRewards(player, quest);
+        
+        switch (quest.getType()) {
+            case KILL_MOBS:
+                player.sendMessage("");
+                player.sendMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+                player.sendMessage(ChatColor.GREEN + "✓ " + ChatColor.BOLD + "Quest Complete!");
+                player.sendMessage(ChatColor.YELLOW + quest.getName());
+                player.sendMessage(ChatColor.GRAY + quest.getDescription());
+                player.sendMessage(ChatColor.YELLOW + "Rewards: " + ChatColor.GREEN + rewardText);
+                player.sendMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+                player.sendMessage("");
+                break;
+            case EXPLORE_BLOCKS:
+                player.sendMessage("§6§l=========================");
+                player.sendMessage("§6§l  Quest Complete! §a§l✓");
+                player.sendMessage("§6§l=========================");
+                player.sendMessage("§e" + quest.getName());
+                player.sendMessage("§aRewards: §f" + rewardText);
+                player.sendMessage("§6§l=========================");
+                break;
+            default:
+                player.sendMessage(ChatColor.GOLD + "=========================");
+                player.sendMessage(ChatColor.GOLD + "  Quest Complete! " + ChatColor.GREEN + "✓");
+                player.sendMessage(ChatColor.GOLD + "=========================");
+                player.sendMessage(ChatColor.YELLOW + "Quest: " + ChatColor.WHITE + quest.getName());
+                player.sendMessage(ChatColor.YELLOW + "Rewards: " + ChatColor.GREEN + rewardText);
+                player.sendMessage(ChatColor.GOLD + "=========================");
+                
+                // Display what was mined/broken/placed/crafted
+                player.sendMessage(ChatColor.GRAY + getTargetsLabel(quest.getType()));
+                ObjectiveLayout objectives = quest.getObjectiveLayout();
+                for (int slot = 0; slot < objectives.size(); slot++) {
+                    int amount = plugin.getProgressManager().getObjectiveProgress(player.getUniqueId(), quest, slot);
+                    player.sendMessage(ChatColor.GRAY + "  - " + formatName(objectives.getTarget(slot)) + ": " +
+                                     ChatColor.WHITE + amount + ChatColor.GRAY + "/" + objectives.getRequired(slot));
+                }
+                break;
+        }
+        
+        // Broadcast completion if enabled
+        plugin.getRewardManager().broadcastCompletion(player, quest);
+    }
+    
+    private String getTargetsLabel(QuestType questType) {
+        switch (questType) {
+            case MINE_BLOCKS:
+                return "Blocks mined:";
+            case PLACE_BLOCKS:
+                return "Blocks placed:";
+            case CRAFT_ITEMS:
+                return "Items crafted:";
+            default:
+                return "Blocks broken:";
+        }
+    }
+    
+    private String formatName(String name) {
+        // Convert COAL_ORE to Coal Ore
+        String[] parts = name.toLowerCase().split("_");
+        StringBuilder result = new StringBuilder();
+        for (String part : parts) {
+            if (result.length() > 0) {
+                result.append(" ");
+            }
+            result.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Apply whatever is still buffered and stop the drain task
+     */
+    public void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        drain();
+    }
+}
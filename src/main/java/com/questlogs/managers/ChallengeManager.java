@@ -1,8 +1,12 @@
 package com.questlogs.managers;
 
 import com.questlogs.QuestLogsPlugin;
+import com.questlogs.models.ActivityType;
 import com.questlogs.models.Challenge;
+import com.questlogs.models.ChallengeIndex;
+import com.questlogs.models.ChallengeMatcher;
 import com.questlogs.models.ChallengeType;
+import com.questlogs.storage.ChallengeJournal;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -17,10 +21,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
- * Manages timed challenges - server-wide mini-games
+ * Manages timed challenges - server-wide mini-games. Several challenges can run
+ * at once, each limited to some worlds or a permission, with its own end timer
+ * and reminders. Activity reaches them through a ChallengeIndex. Running challenges
+ * are checkpointed to a ChallengeJournal and resume with their time left after a restart.
  */
 public class ChallengeManager {
     
@@ -29,18 +35,46 @@ public class ChallengeManager {
     private final File challengesFile;
     private FileConfiguration challengesConfig;
     
-    private Challenge activeChallenge;
+    // Challenge ID -> running challenge, in start order
+    private final Map<String, RunningChallenge> running;
+    private volatile ChallengeIndex index; // EMPTY while nothing runs, checked per activity
     private List<String> challengePool;
     private BukkitTask schedulerTask;
-    private BukkitTask reminderTask;
+    private final ChallengeJournal journal;
+    private BukkitTask checkpointTask;
+    private int checkpointsSinceSnapshot;
+    
+    private static final class RunningChallenge {
+        private final Challenge challenge;
+        private BukkitTask endTask;
+        private BukkitTask reminderTask;
+        
+        private RunningChallenge(Challenge challenge) {
+            this.challenge = challenge;
+        }
+        
+        private void cancelTasks() {
+            if (endTask != null) {
+                endTask.cancel();
+            }
+            if (reminderTask != null) {
+                reminderTask.cancel();
+            }
+        }
+    }
     
     public ChallengeManager(QuestLogsPlugin plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
         this.challengesFile = new File(plugin.getDataFolder(), "challenges.yml");
         this.challengePool = new ArrayList<>();
+        this.running = new LinkedHashMap<>();
+        this.index = ChallengeIndex.EMPTY;
+        this.journal = new ChallengeJournal(new File(plugin.getDataFolder(), "challenge-state"), logger);
         
         loadChallenges();
+        restoreChallenges();
+        startCheckpoints();
         
         // Start challenge scheduler if enabled
         if (challengesConfig.getBoolean("settings.enabled", true)) {
@@ -86,6 +120,9 @@ public class ChallengeManager {
             config.set("settings.broadcast-end", true);
             config.set("settings.reward-top-players", 3);
             config.set("settings.minimum-players", 2); // Don't start if less than 2 players online
+            config.set("settings.max-concurrent", 1); // Random challenges running at the same time
+            config.set("settings.checkpoint-interval", 5); // Seconds between saving score changes
+            config.set("settings.snapshot-interval", 300); // Seconds between compacting saved state
             
             // Easy Challenges (common resources, modest rewards)
             createChallenge(config, "stone_sprint", "Stone Mining Sprint", 
@@ -111,7 +148,7 @@ public class ChallengeManager {
             
             // Medium Challenges (less common resources, better rewards)
             createChallenge(config, "coal_rush", "Coal Rush", 
-                "Mine the most coal ore!", "MINE_BLOCKS", "COAL_ORE", 300,
+                "Mine the most coal ore!", "MINE_BLOCKS", "COAL_ORE, DEEPSLATE_COAL_ORE", 300,
                 new int[]{20, 10, 5}, "IRON_INGOT",
                 new int[]{2, 1, 0}, "DIAMOND",
                 new int[]{1, 1, 0}, "ENCHANTED_BOOK"); // Efficiency II/III
@@ -149,6 +186,8 @@ public class ChallengeManager {
                 new int[]{1, 1, 0}, "ENCHANTED_BOOK"); // Protection III/IV
             addEnchantment(config, "nether_explorer", "1st", "PROTECTION", 4);
             addEnchantment(config, "nether_explorer", "2nd", "PROTECTION", 3);
+            // Optional: worlds, permission and announce-interval limit who takes part and how often it is announced
+            config.set("challenge-pool.nether_explorer.worlds", Arrays.asList("world_nether"));
             
             // Fun/Creative Challenges
             createChallenge(config, "builder_challenge", "Speed Builder", 
@@ -239,7 +278,7 @@ public class ChallengeManager {
         int frequency = challengesConfig.getInt("settings.frequency", 1800) * 20; // Convert to ticks
         
         schedulerTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            if (activeChallenge == null) {
+            if (running.size() < challengesConfig.getInt("settings.max-concurrent", 1)) {
                 startRandomChallenge();
             }
         }, frequency, frequency);
@@ -248,7 +287,7 @@ public class ChallengeManager {
     }
     
     /**
-     * Start a random challenge from the pool
+     * Start a random challenge from the pool that isn't running yet
      */
     public void startRandomChallenge() {
         if (challengePool.isEmpty()) {
@@ -262,34 +301,100 @@ public class ChallengeManager {
             return; // Not enough players online
         }
         
-        String challengeId = challengePool.get(new Random().nextInt(challengePool.size()));
+        List<String> available = new ArrayList<>(challengePool);
+        available.removeAll(running.keySet());
+        if (available.isEmpty()) {
+            return;
+        }
+        String challengeId = available.get(new Random().nextInt(available.size()));
         startChallenge(challengeId);
     }
     
     /**
-     * Start a specific challenge
+     * Start a specific challenge, alongside any that are already running
+     * @return false if it is unknown, invalid or already running
      */
     public boolean startChallenge(String challengeId) {
-        if (activeChallenge != null) {
+        if (running.containsKey(challengeId)) {
             return false; // Challenge already active
         }
         
+        int duration = challengesConfig.getInt("challenge-pool." + challengeId + ".duration", 300);
+        Challenge challenge = createChallenge(challengeId, System.currentTimeMillis(), duration);
+        if (challenge == null) {
+            return false;
+        }
+        
+        journal.recordStart(challenge);
+        run(challenge);
+        
+        // Broadcast start
+        if (challengesConfig.getBoolean("settings.broadcast-start", true)) {
+            broadcastChallengeStart(challenge);
+        }
+        return true;
+    }
+    
+    /**
+     * Resume the challenges that were running when the server stopped, with the time
+     * they had left. Ones that ran out while it was down end on the first tick.
+     */
+    private void restoreChallenges() {
+        for (ChallengeJournal.SavedChallenge saved : journal.load()) {
+            Challenge challenge = createChallenge(saved.id(), saved.startTime(), saved.duration());
+            if (challenge == null) {
+                logger.warning("Dropping running challenge " + saved.id() + ", it is no longer in challenges.yml");
+                continue;
+            }
+            for (ChallengeJournal.ScoreDelta score : saved.scores()) {
+                challenge.addProgress(score.playerId(), score.playerName(), score.amount());
+            }
+            run(challenge);
+            logger.info("Resumed challenge " + saved.id() + " with " + challenge.getRemainingSeconds() + " seconds left");
+        }
+        
+        // Start from a clean snapshot, without whatever a crash cut short
+        journal.snapshot(getActiveChallenges());
+    }
+    
+    /**
+     * Build a challenge from its definition in challenges.yml
+     * @return The challenge, or null if it is unknown or invalid
+     */
+    private Challenge createChallenge(String challengeId, long startTime, int duration) {
         String path = "challenge-pool." + challengeId;
         if (!challengesConfig.contains(path)) {
-            return false;
+            return null;
         }
         
         // Load challenge data
         String name = challengesConfig.getString(path + ".name");
         String description = challengesConfig.getString(path + ".description");
         String typeString = challengesConfig.getString(path + ".type");
-        String target = challengesConfig.getString(path + ".target");
-        int duration = challengesConfig.getInt(path + ".duration", 300);
+        // A single target, a comma separated list or a YAML list
+        List<String> targets = new ArrayList<>();
+        if (challengesConfig.isList(path + ".target")) {
+            targets.addAll(challengesConfig.getStringList(path + ".target"));
+        } else {
+            for (String target : challengesConfig.getString(path + ".target", "ANY").split(",")) {
+                targets.add(target.trim());
+            }
+        }
+        targets.replaceAll(String::toUpperCase);
+        String target = String.join(", ", targets);
+        
+        // Optional limits on who takes part
+        List<String> worldNames = challengesConfig.getStringList(path + ".worlds");
+        Set<String> worlds = worldNames.isEmpty() ? null : new HashSet<>(worldNames);
+        String permission = challengesConfig.getString(path + ".permission");
+        if (permission != null && permission.isEmpty()) {
+            permission = null;
+        }
         
         ChallengeType type = ChallengeType.fromString(typeString);
         if (type == null) {
             logger.warning("Invalid challenge type: " + typeString);
-            return false;
+            return null;
         }
         
         // Load rewards
@@ -311,21 +416,49 @@ public class ChallengeManager {
             }
         }
         
-        // Create and start challenge
-        activeChallenge = new Challenge(challengeId, name, description, type, target, duration, rewards);
-        
-        // Broadcast start
-        if (challengesConfig.getBoolean("settings.broadcast-start", true)) {
-            broadcastChallengeStart();
-        }
+        ChallengeMatcher matcher = ChallengeMatcher.compile(challengeId, type, targets, logger);
+        return new Challenge(challengeId, name, description, type, target, matcher,
+            worlds, permission, startTime, duration, rewards);
+    }
+    
+    /**
+     * Add a challenge to the running ones and schedule its end and reminders
+     */
+    private void run(Challenge challenge) {
+        String challengeId = challenge.getId();
+        RunningChallenge run = new RunningChallenge(challenge);
+        running.put(challengeId, run);
+        rebuildIndex();
         
-        // Schedule end
-        Bukkit.getScheduler().runTaskLater(plugin, this::endChallenge, duration * 20L);
+        // Schedule end, at least a tick away for challenges that ran out during a restart
+        long remainingTicks = Math.max(1, (challenge.getEndTime() - System.currentTimeMillis()) / 50);
+        run.endTask = Bukkit.getScheduler().runTaskLater(plugin, () -> endChallenge(challengeId), remainingTicks);
         
         // Start reminder task
-        startReminderTask();
-        
-        return true;
+        int interval = challengesConfig.getInt("challenge-pool." + challengeId + ".announce-interval",
+            challengesConfig.getInt("settings.announce-interval", 60)) * 20;
+        run.reminderTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            if (challenge.isActive()) {
+                broadcastChallengeReminder(challenge);
+            }
+        }, interval, interval);
+    }
+    
+    /**
+     * Save score changes every few seconds and a full snapshot now and then
+     */
+    private void startCheckpoints() {
+        int interval = Math.max(1, challengesConfig.getInt("settings.checkpoint-interval", 5));
+        int snapshotEvery = Math.max(1, challengesConfig.getInt("settings.snapshot-interval", 300) / interval);
+        
+        checkpointTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            if (++checkpointsSinceSnapshot >= snapshotEvery && isChallengeActive()) {
+                checkpointsSinceSnapshot = 0;
+                journal.snapshot(getActiveChallenges());
+            } else {
+                journal.checkpoint();
+            }
+        }, interval * 20L, interval * 20L);
     }
     
     private int getPlaceNumber(String place) {
@@ -339,146 +472,133 @@ public class ChallengeManager {
         }
     }
     
-    /**
-     * Start reminder task
-     */
-    private void startReminderTask() {
-        int interval = challengesConfig.getInt("settings.announce-interval", 60) * 20;
-        
-        reminderTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            if (activeChallenge != null && activeChallenge.isActive()) {
-                broadcastChallengeReminder();
-            }
-        }, interval, interval);
+    private void rebuildIndex() {
+        index = running.isEmpty() ? ChallengeIndex.EMPTY : ChallengeIndex.build(getActiveChallenges());
     }
     
     /**
-     * End the active challenge
+     * End a running challenge, announce the results and hand out rewards
+     * @return false if it isn't running
      */
-    public void endChallenge() {
-        if (activeChallenge == null) {
-            return;
-        }
-        
-        // Cancel reminder task
-        if (reminderTask != null) {
-            reminderTask.cancel();
-            reminderTask = null;
+    public boolean endChallenge(String challengeId) {
+        RunningChallenge run = running.remove(challengeId);
+        if (run == null) {
+            return false;
         }
+        run.cancelTasks();
+        rebuildIndex();
         
         // Get winners
-        List<Map.Entry<String, Integer>> leaderboard = getLeaderboard();
+        Challenge challenge = run.challenge;
+        journal.recordEnd(challenge);
+        List<Map.Entry<UUID, Long>> leaderboard = challenge.getProgress().top(Integer.MAX_VALUE);
         
         // Broadcast results
         if (challengesConfig.getBoolean("settings.broadcast-end", true)) {
-            broadcastChallengeEnd(leaderboard);
+            broadcastChallengeEnd(challenge, leaderboard);
         }
         
         // Give rewards
-        giveRewards(leaderboard);
-        
-        activeChallenge = null;
+        giveRewards(challenge, leaderboard);
+        return true;
     }
     
     /**
-     * Get current leaderboard
+     * End every running challenge
      */
-    public List<Map.Entry<String, Integer>> getLeaderboard() {
-        if (activeChallenge == null) {
-            return new ArrayList<>();
+    public void endAllChallenges() {
+        for (String challengeId : new ArrayList<>(running.keySet())) {
+            endChallenge(challengeId);
         }
-        
-        return activeChallenge.getProgress().entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-            .collect(Collectors.toList());
     }
     
     /**
-     * Add progress for a player
+     * Get a participant's name for showing results, their current one if they are online
      */
-    public void addProgress(String playerName, String actionType, String target, int amount) {
-        if (activeChallenge == null || !activeChallenge.isActive()) {
-            return;
+    public String getPlayerName(Challenge challenge, UUID playerId) {
+        Player player = Bukkit.getPlayer(playerId);
+        if (player != null) {
+            return player.getName();
         }
-        
-        // Check if this action matches the challenge
-        if (!matchesChallenge(actionType, target)) {
-            return;
+        return challenge.getPlayerName(playerId);
+    }
+    
+    /**
+     * Get the challenge lookup, {@link ChallengeIndex#EMPTY} while no challenge is running
+     */
+    public ChallengeIndex getChallengeIndex() {
+        return index;
+    }
+    
+    /**
+     * Add progress for a player to every running challenge the activity counts for
+     * @param key Material or EntityType ordinal, see {@link ActivityType}
+     */
+    public void addProgress(Player player, ActivityType type, int key, int amount) {
+        for (Challenge challenge : index.get(type, key)) {
+            if (challenge.isActive() && challenge.accepts(player)) {
+                challenge.addProgress(player.getUniqueId(), player.getName(), amount);
+                journal.recordProgress(challenge, player.getUniqueId(), amount);
+            }
         }
-        
-        activeChallenge.addProgress(playerName, amount);
     }
     
-    private boolean matchesChallenge(String actionType, String target) {
-        ChallengeType challengeType = activeChallenge.getType();
-        String challengeTarget = activeChallenge.getTarget();
-        
-        // Check type matches
-        boolean typeMatches = false;
-        switch (challengeType) {
-            case MINE_BLOCKS:
-                typeMatches = actionType.equals("MINE");
-                break;
-            case BREAK_BLOCKS:
-                typeMatches = actionType.equals("BREAK");
-                break;
-            case PLACE_BLOCKS:
-                typeMatches = actionType.equals("PLACE");
-                break;
-            case CRAFT_ITEMS:
-                typeMatches = actionType.equals("CRAFT");
-                break;
-            case KILL_MOBS:
-                typeMatches = actionType.equals("KILL");
-                break;
-            case EXPLORE_BLOCKS:
-                typeMatches = actionType.equals("EXPLORE");
-                return typeMatches; // Exploration doesn't need target match
+    /**
+     * Send a message to everyone who can take part in a challenge
+     */
+    private void announce(Challenge challenge, String message) {
+        if (challenge.getWorlds() == null && challenge.getPermission() == null) {
+            Bukkit.broadcastMessage(message);
+            return;
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (challenge.accepts(player)) {
+                player.sendMessage(message);
+            }
         }
-        
-        // Check target matches
-        return typeMatches && (challengeTarget.equals("ANY") || challengeTarget.equals(target));
     }
     
     /**
-     * Broadcast challenge start
+     * Broadcast challenge start to everyone who can take part
      */
-    private void broadcastChallengeStart() {
-        Bukkit.broadcastMessage("");
-        Bukkit.broadcastMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        Bukkit.broadcastMessage(ChatColor.YELLOW + "" + ChatColor.BOLD + "🏆 CHALLENGE STARTED! 🏆");
-        Bukkit.broadcastMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        Bukkit.broadcastMessage(ChatColor.AQUA + activeChallenge.getName());
-        Bukkit.broadcastMessage(ChatColor.GRAY + activeChallenge.getDescription());
-        Bukkit.broadcastMessage(ChatColor.YELLOW + "Duration: " + ChatColor.WHITE + activeChallenge.getDuration() + " seconds");
-        Bukkit.broadcastMessage(ChatColor.YELLOW + "Type /challenge to view leaderboard");
-        Bukkit.broadcastMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        Bukkit.broadcastMessage("");
+    private void broadcastChallengeStart(Challenge challenge) {
+        announce(challenge, "");
+        announce(challenge, ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        announce(challenge, ChatColor.YELLOW + "" + ChatColor.BOLD + "🏆 CHALLENGE STARTED! 🏆");
+        announce(challenge, ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        announce(challenge, ChatColor.AQUA + challenge.getName());
+        announce(challenge, ChatColor.GRAY + challenge.getDescription());
+        announce(challenge, ChatColor.YELLOW + "Duration: " + ChatColor.WHITE + challenge.getDuration() + " seconds");
+        announce(challenge, ChatColor.YELLOW + "Type /challenge to view leaderboard");
+        announce(challenge, ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        announce(challenge, "");
         
         // Play sound
         for (Player player : Bukkit.getOnlinePlayers()) {
-            player.playSound(player.getLocation(), org.bukkit.Sound.ENTITY_ENDER_DRAGON_GROWL, 1.0f, 1.0f);
+            if (challenge.accepts(player)) {
+                player.playSound(player.getLocation(), org.bukkit.Sound.ENTITY_ENDER_DRAGON_GROWL, 1.0f, 1.0f);
+            }
         }
     }
     
     /**
      * Broadcast challenge reminder
      */
-    private void broadcastChallengeReminder() {
-        long remaining = activeChallenge.getRemainingSeconds();
-        Bukkit.broadcastMessage(ChatColor.YELLOW + "⏰ Challenge: " + ChatColor.AQUA + activeChallenge.getName() + 
-                               ChatColor.GRAY + " - " + ChatColor.WHITE + remaining + "s remaining");
+    private void broadcastChallengeReminder(Challenge challenge) {
+        long remaining = challenge.getRemainingSeconds();
+        announce(challenge, ChatColor.YELLOW + "⏰ Challenge: " + ChatColor.AQUA + challenge.getName() + 
+                 ChatColor.GRAY + " - " + ChatColor.WHITE + remaining + "s remaining");
     }
     
     /**
-     * Broadcast challenge end
+     * Broadcast challenge end, results go to the whole server
      */
-    private void broadcastChallengeEnd(List<Map.Entry<String, Integer>> leaderboard) {
+    private void broadcastChallengeEnd(Challenge challenge, List<Map.Entry<UUID, Long>> leaderboard) {
         Bukkit.broadcastMessage("");
         Bukkit.broadcastMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         Bukkit.broadcastMessage(ChatColor.GREEN + "" + ChatColor.BOLD + "🏆 CHALLENGE COMPLETE! 🏆");
         Bukkit.broadcastMessage(ChatColor.GOLD + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        Bukkit.broadcastMessage(ChatColor.AQUA + activeChallenge.getName());
+        Bukkit.broadcastMessage(ChatColor.AQUA + challenge.getName());
         Bukkit.broadcastMessage("");
         
         if (leaderboard.isEmpty()) {
@@ -486,10 +606,10 @@ public class ChallengeManager {
         } else {
             Bukkit.broadcastMessage(ChatColor.YELLOW + "Top Players:");
             for (int i = 0; i < Math.min(5, leaderboard.size()); i++) {
-                Map.Entry<String, Integer> entry = leaderboard.get(i);
+                Map.Entry<UUID, Long> entry = leaderboard.get(i);
                 String medal = getMedal(i + 1);
                 Bukkit.broadcastMessage(ChatColor.GRAY + "  " + medal + " " + 
-                                      ChatColor.WHITE + entry.getKey() + 
+                                      ChatColor.WHITE + getPlayerName(challenge, entry.getKey()) + 
                                       ChatColor.GRAY + " - " + ChatColor.YELLOW + entry.getValue());
             }
         }
@@ -515,28 +635,24 @@ public class ChallengeManager {
     /**
      * Give rewards to winners
      */
-    private void giveRewards(List<Map.Entry<String, Integer>> leaderboard) {
+    private void giveRewards(Challenge challenge, List<Map.Entry<UUID, Long>> leaderboard) {
         int rewardPlaces = challengesConfig.getInt("settings.reward-top-players", 3);
         
-        // Track participation for all players with progress
-        for (Map.Entry<String, Integer> entry : leaderboard) {
-            String playerName = entry.getKey();
-            Player player = Bukkit.getPlayer(playerName);
-            
-            if (player != null && entry.getValue() > 0) {
+        // Track participation for all players with progress, online or not
+        for (Map.Entry<UUID, Long> entry : leaderboard) {
+            if (entry.getValue() > 0) {
                 // Increment participation count for anyone who contributed
-                plugin.getStatsManager().getPlayerStats(player.getUniqueId()).incrementChallengesParticipated();
+                plugin.getStatsManager().getPlayerStats(entry.getKey()).incrementChallengesParticipated();
             }
         }
         
         // Give rewards to top players
         for (int i = 0; i < Math.min(rewardPlaces, leaderboard.size()); i++) {
             int place = i + 1;
-            String playerName = leaderboard.get(i).getKey();
-            Player player = Bukkit.getPlayer(playerName);
+            Player player = Bukkit.getPlayer(leaderboard.get(i).getKey());
             
-            if (player != null && activeChallenge.hasRewardForPlace(place)) {
-                Map<String, Integer> rewards = activeChallenge.getRewardForPlace(place);
+            if (player != null && challenge.hasRewardForPlace(place)) {
+                Map<String, Integer> rewards = challenge.getRewardForPlace(place);
                 giveRewardsToPlayer(player, rewards, place);
             }
         }
@@ -566,17 +682,30 @@ public class ChallengeManager {
     }
     
     /**
-     * Get active challenge
+     * Get the running challenges, in start order
+     */
+    public List<Challenge> getActiveChallenges() {
+        List<Challenge> challenges = new ArrayList<>(running.size());
+        for (RunningChallenge run : running.values()) {
+            challenges.add(run.challenge);
+        }
+        return challenges;
+    }
+    
+    /**
+     * Get a running challenge
+     * @return The challenge, or null if it isn't running
      */
-    public Challenge getActiveChallenge() {
-        return activeChallenge;
+    public Challenge getActiveChallenge(String challengeId) {
+        RunningChallenge run = running.get(challengeId);
+        return run != null ? run.challenge : null;
     }
     
     /**
-     * Check if challenge is active
+     * Check if any challenge is running
      */
     public boolean isChallengeActive() {
-        return activeChallenge != null && activeChallenge.isActive();
+        return !running.isEmpty();
     }
     
     /**
@@ -593,9 +722,15 @@ public class ChallengeManager {
         if (schedulerTask != null) {
             schedulerTask.cancel();
         }
-        if (reminderTask != null) {
-            reminderTask.cancel();
+        if (checkpointTask != null) {
+            checkpointTask.cancel();
+        }
+        for (RunningChallenge run : running.values()) {
+            run.cancelTasks();
         }
+        
+        // Running challenges resume from here on the next start
+        journal.shutdown(getActiveChallenges());
     }
 }
 
@@ -1,6 +1,7 @@
 package com.questlogs.managers;
 
 import com.questlogs.QuestLogsPlugin;
+import com.questlogs.models.Settings;
 import org.bukkit.configuration.file.FileConfiguration;
 
 public class ConfigManager {
@@ -8,6 +9,9 @@ public class ConfigManager {
     private final QuestLogsPlugin plugin;
     private FileConfiguration config;
     
+    // Replaced as a whole on reload, readers never see a half-loaded config
+    private volatile Settings settings;
+    
     public ConfigManager(QuestLogsPlugin plugin) {
         this.plugin = plugin;
     }
@@ -16,19 +20,23 @@ public class ConfigManager {
         plugin.saveDefaultConfig();
         plugin.reloadConfig();
         config = plugin.getConfig();
+        settings = Settings.load(config, plugin.getLogger());
     }
     
     public FileConfiguration getConfig() {
         return config;
     }
     
+    /**
+     * Get the current settings snapshot. Use this instead of getConfig() in event handlers.
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+    
     public void reloadConfig() {
         plugin.reloadConfig();
         config = plugin.getConfig();
+        settings = Settings.load(config, plugin.getLogger());
     }
 }
-
-
-
-
-
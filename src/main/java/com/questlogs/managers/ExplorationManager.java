@@ -0,0 +1,284 @@
+package com.questlogs.managers;
+
+import com.questlogs.QuestLogsPlugin;
+import com.questlogs.models.ActivityType;
+import com.questlogs.models.RegionBitmap;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Remembers which (x, z) columns each player has visited, for the
+ * "new ground only" exploration mode. Columns are kept per 512x512 region in
+ * a RegionBitmap, stored in exploration/&lt;uuid&gt;/&lt;world&gt;/r.&lt;x&gt;.&lt;z&gt;.qlx.
+ * Regions are loaded on first visit and at most exploration-cache-regions stay
+ * in memory, least recently used are written out and dropped first.
+ * File reads and writes run in order on a single background thread.
+ */
+public class ExplorationManager {
+    
+    private final QuestLogsPlugin plugin;
+    private final Logger logger;
+    private final File directory;
+    private final boolean uniqueOnly;
+    private final int maxCachedRegions;
+    private final Map<RegionKey, Region> regions;
+    private final ExecutorService ioExecutor;
+    
+    private record RegionKey(UUID playerId, UUID worldId, int regionX, int regionZ) {
+    }
+    
+    /**
+     * One player's visited columns in one region. The listener keeps a reference
+     * to the region the player is in, so most moves never touch the cache map.
+     */
+    public static final class Region {
+        private final RegionKey key;
+        private RegionBitmap columns; // null while loading
+        private int[] pending; // Columns visited while loading, counted once loaded
+        private int pendingSize;
+        private boolean dirty;
+        private boolean detached; // Dropped from the cache, get the region again
+        
+        private Region(RegionKey key) {
+            this.key = key;
+        }
+        
+        /**
+         * Check if this is still the cached region for the given column
+         */
+        public boolean covers(UUID worldId, int blockX, int blockZ) {
+            return !detached && key.regionX() == blockX >> RegionBitmap.REGION_SHIFT &&
+                key.regionZ() == blockZ >> RegionBitmap.REGION_SHIFT && key.worldId().equals(worldId);
+        }
+        
+        /**
+         * Mark a column as visited
+         * @return true if the player has never been there. Visits while the
+         *         region loads return false and are counted when it arrives.
+         */
+        public boolean visit(int blockX, int blockZ) {
+            int column = RegionBitmap.column(blockX, blockZ);
+            if (columns == null) {
+                if (pending == null) {
+                    pending = new int[16];
+                } else if (pendingSize == pending.length) {
+                    pending = Arrays.copyOf(pending, pendingSize * 2);
+                }
+                pending[pendingSize++] = column;
+                return false;
+            }
+            
+            if (columns.add(column)) {
+                dirty = true;
+                return true;
+            }
+            return false;
+        }
+    }
+    
+    public ExplorationManager(QuestLogsPlugin plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.directory = new File(plugin.getDataFolder(), "exploration");
+        this.uniqueOnly = plugin.getConfig().getBoolean("exploration-unique-only", false);
+        this.maxCachedRegions = Math.max(16, plugin.getConfig().getInt("exploration-cache-regions", 1024));
+        this.regions = new LinkedHashMap<>(64, 0.75f, true); // Access order for LRU eviction
+        this.ioExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "QuestLogs-Exploration"));
+        
+        if (uniqueOnly) {
+            // Write visited regions out periodically so a crash loses little
+            int saveInterval = plugin.getConfig().getInt("auto-save-interval", 300) * 20; // Convert seconds to ticks
+            plugin.getServer().getScheduler().runTaskTimer(plugin, this::saveAll, saveInterval, saveInterval);
+        }
+    }
+    
+    /**
+     * @return true if exploration only counts columns a player hasn't visited before
+     */
+    public boolean isUniqueOnly() {
+        return uniqueOnly;
+    }
+    
+    /**
+     * Get a player's region containing the given column, loading it in the background if needed
+     */
+    public Region getRegion(UUID playerId, World world, int blockX, int blockZ) {
+        RegionKey key = new RegionKey(playerId, world.getUID(),
+            blockX >> RegionBitmap.REGION_SHIFT, blockZ >> RegionBitmap.REGION_SHIFT);
+        Region region = regions.get(key);
+        if (region != null) {
+            return region;
+        }
+        
+        region = new Region(key);
+        regions.put(key, region);
+        loadInBackground(region);
+        evictOverflow();
+        return region;
+    }
+    
+    private void evictOverflow() {
+        Iterator<Region> iterator = regions.values().iterator();
+        while (regions.size() > maxCachedRegions && iterator.hasNext()) {
+            Region eldest = iterator.next();
+            iterator.remove();
+            detach(eldest);
+        }
+    }
+    
+    private void detach(Region region) {
+        region.detached = true;
+        if (region.dirty) {
+            writeInBackground(region);
+        }
+    }
+    
+    private void loadInBackground(Region region) {
+        File file = getFile(region.key);
+        ioExecutor.execute(() -> {
+            RegionBitmap columns = readRegion(file);
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> onLoaded(region, columns));
+            }
+        });
+    }
+    
+    private void onLoaded(Region region, RegionBitmap columns) {
+        region.columns = columns;
+        
+        // Count the columns visited while we were loading
+        int newColumns = 0;
+        for (int i = 0; i < region.pendingSize; i++) {
+            if (columns.add(region.pending[i])) {
+                newColumns++;
+            }
+        }
+        region.pending = null;
+        region.pendingSize = 0;
+        if (newColumns == 0) {
+            return;
+        }
+        
+        region.dirty = true;
+        Player player = Bukkit.getPlayer(region.key.playerId());
+        if (player != null) {
+            plugin.getActivityManager().record(player, ActivityType.EXPLORE, 0, newColumns);
+        }
+        if (region.detached) {
+            writeInBackground(region); // Evicted while loading
+        }
+    }
+    
+    private RegionBitmap readRegion(File file) {
+        if (!file.exists()) {
+            return new RegionBitmap();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return RegionBitmap.read(in);
+        } catch (IOException e) {
+            logger.warning("Could not read exploration region " + file.getPath() + ", starting it empty");
+            e.printStackTrace();
+            return new RegionBitmap();
+        }
+    }
+    
+    private void writeInBackground(Region region) {
+        // Serialize here, the main thread keeps adding to the bitmap
+        byte[] data;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes));
+            region.columns.write(out);
+            out.flush();
+            data = bytes.toByteArray();
+        } catch (IOException e) {
+            logger.warning("Could not serialize exploration region for " + region.key.playerId());
+            e.printStackTrace();
+            return;
+        }
+        region.dirty = false;
+        
+        File file = getFile(region.key);
+        ioExecutor.execute(() -> writeRegion(file, data));
+    }
+    
+    private void writeRegion(File file, byte[] data) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            file.getParentFile().mkdirs();
+            // Write to a temp file first so a crash never leaves a half-written region
+            Files.write(tempFile.toPath(), data);
+            Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.severe("Could not save exploration region " + file.getPath());
+            e.printStackTrace();
+        }
+    }
+    
+    private File getFile(RegionKey key) {
+        return new File(directory, key.playerId() + File.separator + key.worldId() + File.separator +
+            "r." + key.regionX() + "." + key.regionZ() + ".qlx");
+    }
+    
+    /**
+     * Write every changed region in the background
+     */
+    public void saveAll() {
+        for (Region region : regions.values()) {
+            if (region.dirty && region.columns != null) {
+                writeInBackground(region);
+            }
+        }
+    }
+    
+    /**
+     * Write out and drop a player's regions after they leave
+     */
+    public void unloadPlayer(UUID playerId) {
+        Iterator<Region> iterator = regions.values().iterator();
+        while (iterator.hasNext()) {
+            Region region = iterator.next();
+            if (region.key.playerId().equals(playerId)) {
+                iterator.remove();
+                detach(region);
+            }
+        }
+    }
+    
+    /**
+     * Write all changed regions and wait for the writes to finish
+     */
+    public void shutdown() {
+        saveAll();
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("Timed out writing exploration regions");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.questlogs.managers;
+
+import com.questlogs.QuestLogsPlugin;
+import com.questlogs.storage.PlacedBlockRegion;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Remembers which blocks were placed by players, so breaking them again doesn't
+ * count as mining. Positions are stored per 32x32 chunk region in memory-mapped
+ * files under placed-blocks/&lt;world&gt;/. A region is opened when one of its chunks
+ * loads (or is first looked up) and closed once all of its chunks have unloaded.
+ */
+public class PlacedBlockManager {
+    
+    private final QuestLogsPlugin plugin;
+    private final Logger logger;
+    private final File directory;
+    private final boolean enabled;
+    
+    // World ID -> (region key -> open region)
+    private final Map<UUID, Map<Long, OpenRegion>> worlds;
+    
+    private static final class OpenRegion {
+        private final PlacedBlockRegion region;
+        private final Set<Long> loadedChunks = new HashSet<>();
+        
+        private OpenRegion(PlacedBlockRegion region) {
+            this.region = region;
+        }
+    }
+    
+    public PlacedBlockManager(QuestLogsPlugin plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.directory = new File(plugin.getDataFolder(), "placed-blocks");
+        this.enabled = plugin.getConfig().getBoolean("track-placed-blocks", true);
+        this.worlds = new HashMap<>();
+        
+        // Chunks loaded before we started never send a load event, count them once up front
+        if (enabled) {
+            for (World world : Bukkit.getWorlds()) {
+                for (Chunk chunk : world.getLoadedChunks()) {
+                    onChunkLoad(chunk);
+                }
+            }
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Check if a player placed this block
+     */
+    public boolean isPlayerPlaced(Block block) {
+        if (!enabled) {
+            return false;
+        }
+        OpenRegion open = getRegion(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, false);
+        return open != null && open.region.contains(block.getX(), block.getY(), block.getZ());
+    }
+    
+    /**
+     * Remember that a player placed this block
+     */
+    public void markPlaced(Block block) {
+        if (!enabled) {
+            return;
+        }
+        OpenRegion open = getRegion(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, false);
+        if (open == null) {
+            return;
+        }
+        try {
+            open.region.mark(block.getX(), block.getY(), block.getZ());
+        } catch (IOException e) {
+            logger.warning("Could not record placed block in " + block.getWorld().getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Forget a placed block after it was broken
+     */
+    public void clearPlaced(Block block) {
+        if (!enabled) {
+            return;
+        }
+        OpenRegion open = getRegion(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, false);
+        if (open != null) {
+            open.region.clear(block.getX(), block.getY(), block.getZ());
+        }
+    }
+    
+    public void onChunkLoad(Chunk chunk) {
+        if (enabled) {
+            getRegion(chunk.getWorld(), chunk.getX(), chunk.getZ(), true);
+        }
+    }
+    
+    public void onChunkUnload(Chunk chunk) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, OpenRegion> regions = worlds.get(chunk.getWorld().getUID());
+        if (regions == null) {
+            return;
+        }
+        
+        long regionKey = regionKey(chunk.getX() >> 5, chunk.getZ() >> 5);
+        OpenRegion open = regions.get(regionKey);
+        if (open == null) {
+            return;
+        }
+        open.loadedChunks.remove(chunkKey(chunk.getX(), chunk.getZ()));
+        if (open.loadedChunks.isEmpty()) {
+            regions.remove(regionKey);
+            close(open);
+        }
+    }
+    
+    public void onWorldUnload(World world) {
+        Map<Long, OpenRegion> regions = worlds.remove(world.getUID());
+        if (regions != null) {
+            for (OpenRegion open : regions.values()) {
+                close(open);
+            }
+        }
+    }
+    
+    /**
+     * Get the open region for a chunk, opening it if needed
+     * @param chunkLoaded Count the chunk as loaded. Lookups only do this when they open the
+     *                    region, so the break path is a couple of map reads and a bit test.
+     */
+    private OpenRegion getRegion(World world, int chunkX, int chunkZ, boolean chunkLoaded) {
+        Map<Long, OpenRegion> regions = worlds.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        long regionKey = regionKey(chunkX >> 5, chunkZ >> 5);
+        OpenRegion open = regions.get(regionKey);
+        if (open == null) {
+            File file = new File(directory, world.getUID() + File.separator +
+                "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".qlp");
+            int sections = (world.getMaxHeight() - world.getMinHeight()) >> 4;
+            try {
+                open = new OpenRegion(PlacedBlockRegion.open(file, world.getMinHeight(), sections));
+            } catch (IOException e) {
+                logger.warning("Could not open placed block region " + file.getPath() + ": " + e.getMessage());
+                e.printStackTrace();
+                return null;
+            }
+            regions.put(regionKey, open);
+            chunkLoaded = true; // A lookup only opens a region for a chunk that is loaded
+        }
+        if (chunkLoaded) {
+            open.loadedChunks.add(chunkKey(chunkX, chunkZ));
+        }
+        return open;
+    }
+    
+    private void close(OpenRegion open) {
+        try {
+            open.region.close();
+        } catch (IOException e) {
+            logger.warning("Could not close placed block region: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    private static long regionKey(int regionX, int regionZ) {
+        return (long) regionX << 32 | (regionZ & 0xFFFFFFFFL);
+    }
+    
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Flush and close every open region
+     */
+    public void shutdown() {
+        for (Map<Long, OpenRegion> regions : worlds.values()) {
+            for (OpenRegion open : regions.values()) {
+                close(open);
+            }
+        }
+        worlds.clear();
+    }
+}
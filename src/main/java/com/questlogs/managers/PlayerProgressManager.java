@@ -3,147 +3,361 @@ package com.questlogs.managers;
 import com.questlogs.QuestLogsPlugin;
 import com.questlogs.models.PlayerQuestProgress;
 import com.questlogs.models.Quest;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import com.questlogs.models.QuestGraph;
+import com.questlogs.models.QuestUnlocks;
+import com.questlogs.storage.ProgressStorage;
+import com.questlogs.storage.ShardedProgressStorage;
+import com.questlogs.storage.SqliteProgressStorage;
+import com.questlogs.storage.YamlProgressStorage;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PlayerProgressManager {
     
     private final QuestLogsPlugin plugin;
     private final Map<UUID, PlayerQuestProgress> playerProgress;
-    private File progressFile;
+    private final File progressFile;
+    private ProgressStorage storage;
+    
+    // Players loaded off the main thread during login, waiting to be picked up
+    private final Map<UUID, PlayerQuestProgress> preloaded;
+    
+    // Each player's completed and unlocked quests, the open ones are unlocked and not yet complete.
+    // Built on first use and kept up to date as quests complete (main thread only).
+    private final Map<UUID, QuestUnlocks> openQuests;
+    
+    // Write-behind state: snapshots waiting for the writer
+    private final Map<UUID, PlayerQuestProgress> pendingWrites;
+    private final Object storageLock = new Object();
+    private BukkitTask flushTask;
+    private int saveIntervalSeconds;
     
     public PlayerProgressManager(QuestLogsPlugin plugin) {
         this.plugin = plugin;
-        this.playerProgress = new HashMap<>();
+        this.playerProgress = new ConcurrentHashMap<>();
         this.progressFile = new File(plugin.getDataFolder(), "progress.yml");
+        this.preloaded = new ConcurrentHashMap<>();
+        this.pendingWrites = new ConcurrentHashMap<>();
+        this.openQuests = new HashMap<>();
     }
     
     public void loadProgress() {
-        if (!progressFile.exists()) {
+        startFlushTask();
+        
+        synchronized (storageLock) {
+            pendingWrites.clear();
+            if (storage != null) {
+                storage.close();
+            }
+            storage = createStorage();
+            migrateLegacyProgress();
+            
+            // Keep what is already in memory (e.g. on /questadmin reload), it was just saved
+            // and is never older than the stored copy. Dropping it would turn everyone online
+            // back into a placeholder until their load finishes.
+            openQuests.clear();
+            storage.loadAll().forEach(playerProgress::putIfAbsent);
+        }
+        
+        // Lazy storages only hold online players, so load whoever is already here (e.g. after /reload)
+        if (storage.isLazy()) {
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                getPlayerProgress(player.getUniqueId());
+            }
+        }
+    }
+    
+    private ProgressStorage createStorage() {
+        String type = plugin.getConfig().getString("progress-storage", "yaml");
+        if (type.equalsIgnoreCase("sharded")) {
+            return new ShardedProgressStorage(new File(plugin.getDataFolder(), "progress"), plugin.getLogger());
+        }
+        if (type.equalsIgnoreCase("sqlite")) {
+            return new SqliteProgressStorage(plugin.getStatsManager().getDatabase());
+        }
+        if (!type.equalsIgnoreCase("yaml")) {
+            plugin.getLogger().warning("Unknown progress-storage '" + type + "', using yaml");
+        }
+        return new YamlProgressStorage(progressFile, plugin.getLogger());
+    }
+    
+    /**
+     * Copy an existing progress.yml into a different storage the first time it is used,
+     * then rename the old file so the import only happens once
+     */
+    private void migrateLegacyProgress() {
+        if (storage instanceof YamlProgressStorage || !progressFile.exists()) {
             return;
         }
         
-        FileConfiguration config = YamlConfiguration.loadConfiguration(progressFile);
-        playerProgress.clear();
+        Map<UUID, PlayerQuestProgress> legacy = new YamlProgressStorage(progressFile, plugin.getLogger()).loadAll();
+        for (PlayerQuestProgress progress : legacy.values()) {
+            progress.markAllChanged(); // Storages that only write changes need every value
+        }
+        storage.save(legacy.values());
         
-        if (config.contains("players")) {
-            for (String uuidString : config.getConfigurationSection("players").getKeys(false)) {
-                UUID playerId = UUID.fromString(uuidString);
-                String path = "players." + uuidString;
-                
-                PlayerQuestProgress progress = new PlayerQuestProgress(playerId);
-                Map<String, Integer> questProgress = new HashMap<>();
-                
-                if (config.contains(path + ".quests")) {
-                    for (String questId : config.getConfigurationSection(path + ".quests").getKeys(false)) {
-                        int value = config.getInt(path + ".quests." + questId);
-                        questProgress.put(questId, value);
-                    }
-                }
-                
-                progress.setQuestProgress(questProgress);
-                
-                // Load block-specific progress for mining quests
-                Map<String, Map<String, Integer>> blockProgress = new HashMap<>();
-                if (config.contains(path + ".blockProgress")) {
-                    for (String questId : config.getConfigurationSection(path + ".blockProgress").getKeys(false)) {
-                        Map<String, Integer> blocks = new HashMap<>();
-                        String blockPath = path + ".blockProgress." + questId;
-                        
-                        if (config.contains(blockPath)) {
-                            for (String blockType : config.getConfigurationSection(blockPath).getKeys(false)) {
-                                int count = config.getInt(blockPath + "." + blockType);
-                                blocks.put(blockType, count);
-                            }
-                        }
-                        
-                        blockProgress.put(questId, blocks);
-                    }
-                }
-                progress.setBlockProgress(blockProgress);
-                
-                // Load mob kill progress
-                Map<String, Map<String, Integer>> mobProgress = new HashMap<>();
-                if (config.contains(path + ".mobProgress")) {
-                    for (String questId : config.getConfigurationSection(path + ".mobProgress").getKeys(false)) {
-                        Map<String, Integer> mobs = new HashMap<>();
-                        String mobPath = path + ".mobProgress." + questId;
-                        
-                        if (config.contains(mobPath)) {
-                            for (String mobType : config.getConfigurationSection(mobPath).getKeys(false)) {
-                                int count = config.getInt(mobPath + "." + mobType);
-                                mobs.put(mobType, count);
-                            }
-                        }
-                        
-                        mobProgress.put(questId, mobs);
-                    }
-                }
-                progress.setMobProgress(mobProgress);
-                
-                playerProgress.put(playerId, progress);
+        File migrated = new File(plugin.getDataFolder(), "progress.yml.migrated");
+        if (progressFile.renameTo(migrated)) {
+            plugin.getLogger().info("Migrated progress for " + legacy.size() + " players out of progress.yml");
+        } else {
+            plugin.getLogger().warning("Migrated progress.yml but could not rename it, it will be imported again next start");
+        }
+    }
+    
+    /**
+     * Load a player's progress ahead of time. Called from the async pre-login
+     * event so the disk read never happens on the main thread.
+     */
+    public void preloadPlayer(UUID playerId) {
+        if (!storage.isLazy() || playerProgress.containsKey(playerId)) {
+            return; // Already resident (e.g. rejoined within the unload delay)
+        }
+        
+        preloaded.put(playerId, loadFromStorage(playerId));
+    }
+    
+    /**
+     * Drop a preloaded player that was never picked up (e.g. the login was denied later on)
+     */
+    public void discardPreloaded(UUID playerId) {
+        preloaded.remove(playerId);
+    }
+    
+    /**
+     * Read a player from storage off the main thread. Holding the storage lock
+     * means a snapshot that is being written is either still pending or already stored.
+     */
+    private PlayerQuestProgress loadFromStorage(UUID playerId) {
+        synchronized (storageLock) {
+            // A snapshot that hasn't reached the disk yet is newer than the stored copy
+            PlayerQuestProgress pending = pendingWrites.get(playerId);
+            if (pending != null) {
+                return pending.copy();
             }
+            return storage.load(playerId);
         }
     }
     
-    public void saveProgress() {
-        FileConfiguration config = new YamlConfiguration();
+    /**
+     * Load a placeholder's progress in the background and merge it in on the main thread
+     */
+    private void loadInBackground(UUID playerId) {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            PlayerQuestProgress loaded = loadFromStorage(playerId);
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                PlayerQuestProgress current = playerProgress.get(playerId);
+                if (current != null) {
+                    current.applyLoaded(loaded);
+                    openQuests.remove(playerId); // Rebuild from the real progress
+                }
+            });
+        });
+    }
+    
+    /**
+     * Schedule a player's progress to be dropped from memory after they log out.
+     * The delay lets quick reconnects skip the reload entirely.
+     */
+    public void scheduleUnload(UUID playerId) {
+        if (!storage.isLazy()) {
+            return; // Single-file storage keeps everyone loaded
+        }
         
-        for (Map.Entry<UUID, PlayerQuestProgress> entry : playerProgress.entrySet()) {
-            String uuidString = entry.getKey().toString();
-            PlayerQuestProgress progress = entry.getValue();
-            
-            for (Map.Entry<String, Integer> questEntry : progress.getQuestProgress().entrySet()) {
-                config.set("players." + uuidString + ".quests." + questEntry.getKey(), questEntry.getValue());
+        long delayTicks = Math.max(0, plugin.getConfig().getInt("progress-unload-delay", 60)) * 20L;
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> unloadPlayer(playerId), delayTicks);
+    }
+    
+    private void unloadPlayer(UUID playerId) {
+        if (plugin.getServer().getPlayer(playerId) != null) {
+            return; // Player came back before the delay ran out
+        }
+        PlayerQuestProgress resident = playerProgress.get(playerId);
+        if (resident != null && resident.isLoading()) {
+            scheduleUnload(playerId); // Wait for the load so its changes can be saved
+            return;
+        }
+        
+        PlayerQuestProgress progress = playerProgress.remove(playerId);
+        preloaded.remove(playerId);
+        openQuests.remove(playerId);
+        if (progress != null && progress.isDirty()) {
+            queueSnapshot(progress);
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::writePendingProgress);
+        }
+    }
+    
+    /**
+     * Write every dirty player to storage on the calling thread.
+     * Used on shutdown and when write-behind is disabled.
+     */
+    public void saveProgress() {
+        queueDirtyPlayers();
+        writePendingProgress();
+    }
+    
+    /**
+     * Snapshot dirty players on the main thread and write them in the background
+     */
+    public void flushProgressAsync() {
+        if (queueDirtyPlayers() == 0) {
+            return;
+        }
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::writePendingProgress);
+    }
+    
+    /**
+     * Copy every dirty player into the pending write queue
+     * @return Number of players queued
+     */
+    private int queueDirtyPlayers() {
+        int queued = 0;
+        for (PlayerQuestProgress progress : playerProgress.values()) {
+            // Placeholders are written once their stored progress has been merged in
+            if (progress.isDirty() && !progress.isLoading()) {
+                queueSnapshot(progress);
+                queued++;
+            }
+        }
+        return queued;
+    }
+    
+    /**
+     * Queue a snapshot of a player for the writer. If an older snapshot is still
+     * waiting, its changes are carried over so no increments are dropped.
+     */
+    private void queueSnapshot(PlayerQuestProgress progress) {
+        pendingWrites.merge(progress.getPlayerId(), progress.snapshot(), (older, newer) -> {
+            newer.mergeOlderChanges(older);
+            return newer;
+        });
+    }
+    
+    /**
+     * Hand queued snapshots to the storage. Only the queued players are written,
+     * if the storage fails they are queued again for the next flush.
+     */
+    private void writePendingProgress() {
+        synchronized (storageLock) {
+            if (pendingWrites.isEmpty() || storage == null) {
+                return;
             }
             
-            // Save block-specific progress for mining quests
-            for (Map.Entry<String, Map<String, Integer>> questBlockEntry : progress.getBlockProgress().entrySet()) {
-                String questId = questBlockEntry.getKey();
-                for (Map.Entry<String, Integer> blockEntry : questBlockEntry.getValue().entrySet()) {
-                    String blockType = blockEntry.getKey();
-                    int count = blockEntry.getValue();
-                    config.set("players." + uuidString + ".blockProgress." + questId + "." + blockType, count);
+            List<PlayerQuestProgress> snapshots = new ArrayList<>();
+            for (UUID playerId : new ArrayList<>(pendingWrites.keySet())) {
+                PlayerQuestProgress snapshot = pendingWrites.remove(playerId);
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
                 }
             }
             
-            // Save mob-specific progress for kill quests
-            for (Map.Entry<String, Map<String, Integer>> questMobEntry : progress.getMobProgress().entrySet()) {
-                String questId = questMobEntry.getKey();
-                for (Map.Entry<String, Integer> mobEntry : questMobEntry.getValue().entrySet()) {
-                    String mobType = mobEntry.getKey();
-                    int count = mobEntry.getValue();
-                    config.set("players." + uuidString + ".mobProgress." + questId + "." + mobType, count);
+            try {
+                storage.save(snapshots);
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Could not save quest progress for " + snapshots.size() + " players, retrying on the next save");
+                for (PlayerQuestProgress snapshot : snapshots) {
+                    // Anything queued since is newer, it takes over the failed changes
+                    pendingWrites.merge(snapshot.getPlayerId(), snapshot, (newer, failed) -> {
+                        newer.mergeOlderChanges(failed);
+                        return newer;
+                    });
                 }
             }
         }
+    }
+    
+    /**
+     * Start the background flusher. The interval is the maximum amount of
+     * progress (in seconds) that can be lost if the server crashes.
+     */
+    private void startFlushTask() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
         
-        try {
-            config.save(progressFile);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save progress file!");
-            e.printStackTrace();
+        saveIntervalSeconds = plugin.getConfig().getInt("progress-save-interval", 30);
+        if (saveIntervalSeconds <= 0) {
+            return; // Write-through mode, every change is saved immediately
+        }
+        
+        long intervalTicks = saveIntervalSeconds * 20L;
+        flushTask = plugin.getServer().getScheduler().runTaskTimer(plugin, 
+            this::flushProgressAsync, intervalTicks, intervalTicks);
+    }
+    
+    /**
+     * Called after every mutation. In write-through mode this saves right away,
+     * otherwise the change waits for the next background flush.
+     */
+    private void onProgressChanged() {
+        if (saveIntervalSeconds <= 0) {
+            saveProgress();
+        }
+    }
+    
+    /**
+     * Stop the background flusher and write everything that is still pending
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        saveProgress();
+        synchronized (storageLock) {
+            if (storage != null) {
+                storage.close();
+            }
         }
     }
     
     public PlayerQuestProgress getPlayerProgress(UUID playerId) {
-        return playerProgress.computeIfAbsent(playerId, PlayerQuestProgress::new);
+        PlayerQuestProgress progress = playerProgress.get(playerId);
+        if (progress != null) {
+            return progress;
+        }
+        
+        // Picked up from the pre-login load. Anyone else (offline lookups from commands,
+        // players already online after a reload) gets a placeholder while the load runs.
+        progress = preloaded.remove(playerId);
+        if (progress == null) {
+            PlayerQuestProgress pending = pendingWrites.get(playerId);
+            if (pending != null) {
+                progress = pending.copy();
+            } else if (storage.isLazy()) {
+                progress = PlayerQuestProgress.placeholder(playerId);
+                loadInBackground(playerId);
+            } else {
+                progress = new PlayerQuestProgress(playerId); // Everyone stored is already loaded
+            }
+        }
+        playerProgress.put(playerId, progress);
+        
+        // Offline lookups (admin commands, challenge rewards) are released again like a logout
+        if (plugin.getServer().getPlayer(playerId) == null) {
+            scheduleUnload(playerId);
+        }
+        return progress;
     }
     
     public void setPlayerProgress(UUID playerId, String questId, int amount) {
         PlayerQuestProgress progress = getPlayerProgress(playerId);
         progress.setProgress(questId, amount);
-        saveProgress();
+        invalidateOpenQuests(playerId); // Set by admin commands, can complete or reopen quests
+        onProgressChanged();
     }
     
     public void addPlayerProgress(UUID playerId, String questId, int amount) {
         PlayerQuestProgress progress = getPlayerProgress(playerId);
         progress.addProgress(questId, amount);
-        saveProgress();
+        onProgressChanged();
     }
     
     public int getPlayerProgress(UUID playerId, String questId) {
@@ -151,17 +365,35 @@ public class PlayerProgressManager {
         return progress.getProgress(questId);
     }
     
+    // Slot-based objective progress, see Quest#getObjectiveLayout()
+    public int getObjectiveProgress(UUID playerId, Quest quest, int slot) {
+        PlayerQuestProgress progress = getPlayerProgress(playerId);
+        return progress.getObjectiveProgress(quest, slot);
+    }
+    
+    public void addObjectiveProgress(UUID playerId, Quest quest, int slot, int amount) {
+        PlayerQuestProgress progress = getPlayerProgress(playerId);
+        progress.addObjectiveProgress(quest, slot, amount);
+        onProgressChanged();
+    }
+    
+    public boolean areObjectivesComplete(UUID playerId, Quest quest) {
+        PlayerQuestProgress progress = getPlayerProgress(playerId);
+        return progress.areObjectivesComplete(quest);
+    }
+    
     // Block-specific progress methods for mining quests
     public void addBlockProgress(UUID playerId, String questId, String blockType, int amount) {
         PlayerQuestProgress progress = getPlayerProgress(playerId);
         progress.addBlockProgress(questId, blockType, amount);
-        saveProgress();
+        onProgressChanged();
     }
     
     public void setBlockProgress(UUID playerId, String questId, String blockType, int amount) {
         PlayerQuestProgress progress = getPlayerProgress(playerId);
         progress.setBlockProgress(questId, blockType, amount);
-        saveProgress();
+        invalidateOpenQuests(playerId);
+        onProgressChanged();
     }
     
     public int getBlockProgress(UUID playerId, String questId, String blockType) {
@@ -178,13 +410,14 @@ public class PlayerProgressManager {
     public void addMobProgress(UUID playerId, String questId, String mobType, int amount) {
         PlayerQuestProgress progress = getPlayerProgress(playerId);
         progress.addMobProgress(questId, mobType, amount);
-        saveProgress();
+        onProgressChanged();
     }
     
     public void setMobProgress(UUID playerId, String questId, String mobType, int amount) {
         PlayerQuestProgress progress = getPlayerProgress(playerId);
         progress.setMobProgress(questId, mobType, amount);
-        saveProgress();
+        invalidateOpenQuests(playerId);
+        onProgressChanged();
     }
     
     public int getMobProgress(UUID playerId, String questId, String mobType) {
@@ -197,6 +430,106 @@ public class PlayerProgressManager {
         return progress.getQuestMobProgress(questId);
     }
     
+    /**
+     * Check if a player can still make progress on a quest: it is active,
+     * its prerequisite is done and it isn't complete yet.
+     * This is a bit test, so listeners can call it on every event.
+     */
+    public boolean isQuestOpen(UUID playerId, String questId) {
+        QuestUnlocks unlocks = getUnlocks(playerId);
+        int index = unlocks.getGraph().indexOf(questId);
+        return index >= 0 && unlocks.isOpen(index);
+    }
+    
+    /**
+     * Check if a quest is active and its prerequisite is done (or prerequisites are disabled)
+     */
+    public boolean isQuestUnlocked(UUID playerId, String questId) {
+        QuestUnlocks unlocks = getUnlocks(playerId);
+        int index = unlocks.getGraph().indexOf(questId);
+        return index >= 0 && unlocks.isUnlocked(index);
+    }
+    
+    private QuestUnlocks getUnlocks(UUID playerId) {
+        QuestGraph graph = plugin.getQuestManager().getCatalog().getGraph();
+        boolean prerequisites = plugin.getConfigManager().getSettings().enablePrerequisites();
+        QuestUnlocks unlocks = openQuests.get(playerId);
+        if (unlocks != null && unlocks.isFor(graph, prerequisites)) {
+            return unlocks;
+        }
+        
+        PlayerQuestProgress progress = getPlayerProgress(playerId);
+        BitSet complete = new BitSet(graph.size());
+        for (int i = 0; i < graph.size(); i++) {
+            if (isQuestComplete(playerId, graph.getQuest(i))) {
+                complete.set(i);
+            }
+        }
+        unlocks = new QuestUnlocks(graph, prerequisites, complete);
+        
+        // A placeholder's unlocks are rebuilt once the real progress has loaded
+        if (!progress.isLoading()) {
+            openQuests.put(playerId, unlocks);
+        }
+        return unlocks;
+    }
+    
+    /**
+     * Called by the listeners as soon as a player finishes a quest.
+     * Closes it and unlocks the quests that were waiting on it.
+     */
+    public void onQuestCompleted(UUID playerId, String questId) {
+        QuestUnlocks unlocks = openQuests.get(playerId);
+        if (unlocks == null) {
+            return; // Built from scratch on next use
+        }
+        int index = unlocks.getGraph().indexOf(questId);
+        if (index >= 0) {
+            unlocks.markComplete(index);
+        }
+    }
+    
+    /**
+     * Forget a player's open quests, e.g. after an admin changed their progress
+     */
+    public void invalidateOpenQuests(UUID playerId) {
+        openQuests.remove(playerId);
+    }
+    
+    /**
+     * Forget every player's open quests after the quest definitions changed
+     */
+    public void invalidateAllOpenQuests() {
+        openQuests.clear();
+    }
+    
+    /**
+     * Move every player's unlocks to the current quests after only a few of them
+     * changed. Completion is only re-checked for the changed quests, the rest
+     * carry their bits over.
+     */
+    public void refreshOpenQuests(Collection<String> questIds) {
+        QuestGraph graph = plugin.getQuestManager().getCatalog().getGraph();
+        boolean prerequisites = plugin.getConfigManager().getSettings().enablePrerequisites();
+        Set<String> changed = new HashSet<>(questIds);
+        
+        for (Map.Entry<UUID, QuestUnlocks> entry : openQuests.entrySet()) {
+            UUID playerId = entry.getKey();
+            QuestUnlocks old = entry.getValue();
+            BitSet complete = new BitSet(graph.size());
+            for (int i = 0; i < graph.size(); i++) {
+                Quest quest = graph.getQuest(i);
+                int oldIndex = old.getGraph().indexOf(quest.getId());
+                boolean done = changed.contains(quest.getId()) || oldIndex < 0 ? 
+                    isQuestComplete(playerId, quest) : old.isComplete(oldIndex);
+                if (done) {
+                    complete.set(i);
+                }
+            }
+            entry.setValue(new QuestUnlocks(graph, prerequisites, complete));
+        }
+    }
+    
     /**
      * Check if a quest is complete for a player
      * @param playerId Player's UUID
@@ -208,38 +541,23 @@ public class PlayerProgressManager {
         if (quest == null) {
             return false;
         }
-        
+        return isQuestComplete(playerId, quest);
+    }
+    
+    private boolean isQuestComplete(UUID playerId, Quest quest) {
         // Check based on quest type
         if ((quest.getType() == com.questlogs.models.QuestType.MINE_BLOCKS || 
              quest.getType() == com.questlogs.models.QuestType.BREAK_BLOCKS ||
              quest.getType() == com.questlogs.models.QuestType.PLACE_BLOCKS ||
              quest.getType() == com.questlogs.models.QuestType.CRAFT_ITEMS) && quest.hasBlockTargets()) {
-            // Block-based quest (mining, breaking, placing, crafting) - check all targets
-            for (Map.Entry<String, Integer> entry : quest.getBlockTargets().entrySet()) {
-                String blockType = entry.getKey();
-                int required = entry.getValue();
-                int current = getBlockProgress(playerId, questId, blockType);
-                
-                if (current < required) {
-                    return false;
-                }
-            }
-            return true;
+            // Block-based quest (mining, breaking, placing, crafting) - check all target slots
+            return getPlayerProgress(playerId).areObjectivesComplete(quest);
         } else if (quest.getType() == com.questlogs.models.QuestType.KILL_MOBS && quest.hasMobTargets()) {
-            // Mob kill quest - check all mob targets
-            for (Map.Entry<String, Integer> entry : quest.getMobTargets().entrySet()) {
-                String mobType = entry.getKey();
-                int required = entry.getValue();
-                int current = getMobProgress(playerId, questId, mobType);
-                
-                if (current < required) {
-                    return false;
-                }
-            }
-            return true;
+            // Mob kill quest - check all target slots
+            return getPlayerProgress(playerId).areObjectivesComplete(quest);
         } else {
             // Regular quest (exploration, etc.) - check target amount
-            int progress = getPlayerProgress(playerId, questId);
+            int progress = getPlayerProgress(playerId, quest.getId());
             return progress >= quest.getTargetAmount();
         }
     }
@@ -0,0 +1,143 @@
+package com.questlogs.managers;
+
+import com.questlogs.QuestLogsPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Watches quests.yml, challenges.yml and the packs in quests.d, and reloads a file
+ * shortly after it was edited. Quest files are re-parsed on the watcher thread and
+ * only the edited file's quests are replaced, see QuestManager#reloadSource.
+ * Editors often write a file in several steps, so a file is only reloaded
+ * once it has been quiet for {@link #SETTLE_MILLIS}.
+ */
+public class QuestFileWatcher {
+    
+    private static final long SETTLE_MILLIS = 1000;
+    private static final String CHALLENGES_FILE = "challenges.yml";
+    
+    private final QuestLogsPlugin plugin;
+    private final Logger logger;
+    private final boolean enabled;
+    private final Path dataFolder;
+    private final Path packDirectory;
+    private final Map<Path, Long> pending; // Changed file -> time of its last change, watcher thread only
+    private WatchService watchService;
+    private Thread thread;
+    
+    public QuestFileWatcher(QuestLogsPlugin plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.enabled = plugin.getConfig().getBoolean("watch-quest-files", false);
+        this.dataFolder = plugin.getDataFolder().toPath();
+        this.packDirectory = dataFolder.resolve(QuestManager.PACK_DIRECTORY);
+        this.pending = new HashMap<>();
+    }
+    
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            packDirectory.toFile().mkdirs();
+            watchService = FileSystems.getDefault().newWatchService();
+            dataFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            packDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, 
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.warning("Could not watch quest files, edits need /questadmin reload: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+        
+        thread = new Thread(this::run, "QuestLogs-FileWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching quest files for changes");
+    }
+    
+    private void run() {
+        try {
+            while (true) {
+                // Wake up regularly to reload files that have settled
+                WatchKey key = watchService.poll(250, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name && isWatched(directory, name)) {
+                            pending.put(directory.resolve(name), System.currentTimeMillis());
+                        }
+                    }
+                    key.reset();
+                }
+                reloadSettled();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+    
+    private boolean isWatched(Path directory, Path name) {
+        String fileName = name.toString();
+        if (directory.equals(packDirectory)) {
+            return fileName.endsWith(".yml");
+        }
+        return fileName.equals(QuestManager.MAIN_SOURCE) || fileName.equals(CHALLENGES_FILE);
+    }
+    
+    private void reloadSettled() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < SETTLE_MILLIS) {
+                continue;
+            }
+            iterator.remove();
+            reload(entry.getKey().toFile());
+        }
+    }
+    
+    private void reload(File file) {
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        if (file.getName().equals(CHALLENGES_FILE) && file.getParentFile().equals(plugin.getDataFolder())) {
+            // The challenge pool is a small file read on the main thread
+            plugin.getServer().getScheduler().runTask(plugin, () -> plugin.getChallengeManager().loadChallenges());
+            return;
+        }
+        try {
+            plugin.getQuestManager().reloadSource(file);
+        } catch (RuntimeException e) {
+            // Keep watching even if one reload goes wrong
+            logger.severe("Error reloading " + file.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    public void shutdown() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warning("Could not stop watching quest files: " + e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
@@ -2,33 +2,195 @@ package com.questlogs.managers;
 
 import com.questlogs.QuestLogsPlugin;
 import com.questlogs.models.Quest;
+import com.questlogs.models.QuestCatalog;
+import com.questlogs.models.QuestIndex;
 import com.questlogs.models.QuestType;
+import com.questlogs.storage.QuestParseCache;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class QuestManager {
     
+    public static final String MAIN_SOURCE = "quests.yml";
+    public static final String PACK_DIRECTORY = "quests.d";
+    
+    // quests.yml first, then the packs in quests.d by name
+    private static final Comparator<String> SOURCE_ORDER = 
+        Comparator.comparing((String source) -> !source.equals(MAIN_SOURCE)).thenComparing(Comparator.naturalOrder());
+    
     private final QuestLogsPlugin plugin;
-    private final Map<String, Quest> quests;
     private File questsFile;
+    private final File packDirectory;
+    private final QuestParseCache parseCache;
+    private volatile QuestCatalog catalog = QuestCatalog.EMPTY; // Replaced as a whole whenever quests change
+    private final AtomicInteger reloadGeneration = new AtomicInteger(); // Newest reload wins
+    private volatile boolean questsFileLoaded; // Never save over a quests.yml we couldn't read
     
     public QuestManager(QuestLogsPlugin plugin) {
         this.plugin = plugin;
-        this.quests = new HashMap<>();
-        this.questsFile = new File(plugin.getDataFolder(), "quests.yml");
+        this.questsFile = new File(plugin.getDataFolder(), MAIN_SOURCE);
+        this.packDirectory = new File(plugin.getDataFolder(), PACK_DIRECTORY);
+        this.parseCache = new QuestParseCache(new File(plugin.getDataFolder(), "quest-cache.bin"));
+        if (!parseCache.load()) {
+            plugin.getLogger().warning("Could not read quest-cache.bin, all quest files will be parsed");
+        }
     }
     
+    /**
+     * Load quests on the calling thread, used on startup
+     */
     public void loadQuests() {
+        try {
+            setCatalog(parseCatalog());
+            questsFileLoaded = true;
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().severe("Could not load quests, no quests are loaded!");
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Parse and validate all quest files on a worker thread and swap the result in on
+     * the main thread. If a file can't be parsed the current quests stay loaded.
+     * @param callback Called on the main thread with true once the new quests are live
+     */
+    public void reloadQuestsAsync(Consumer<Boolean> callback) {
+        int generation = reloadGeneration.incrementAndGet();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            QuestCatalog loaded;
+            try {
+                loaded = parseCatalog();
+            } catch (IOException | InvalidConfigurationException e) {
+                plugin.getLogger().severe("Could not reload quests, keeping the current quests!");
+                e.printStackTrace();
+                loaded = null;
+            }
+            
+            QuestCatalog result = loaded;
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                // A later reload already started, let that one decide
+                boolean swapped = result != null && generation == reloadGeneration.get();
+                if (swapped) {
+                    setCatalog(result);
+                    questsFileLoaded = true;
+                    plugin.getLogger().info("Reloaded " + result.size() + " quests");
+                }
+                callback.accept(swapped);
+            });
+        });
+    }
+    
+    /**
+     * Read quests.yml and the packs in quests.d into a new catalog. Files are parsed
+     * in parallel, files that haven't changed since they were last parsed are taken
+     * from the parse cache. A pack that fails to parse is skipped, only a broken
+     * quests.yml fails the whole load. Touches no live state, so it can run on any thread.
+     */
+    private QuestCatalog parseCatalog() throws IOException, InvalidConfigurationException {
         if (!questsFile.exists()) {
             createDefaultQuests();
         }
         
-        FileConfiguration config = YamlConfiguration.loadConfiguration(questsFile);
-        quests.clear();
+        List<File> files = new ArrayList<>();
+        files.add(questsFile);
+        File[] packs = packDirectory.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (packs != null) {
+            files.addAll(Arrays.asList(packs));
+        }
+        
+        Map<String, List<Quest>> sources = new TreeMap<>(SOURCE_ORDER);
+        ForkJoinPool pool = new ForkJoinPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<ForkJoinTask<List<Quest>>> tasks = new ArrayList<>();
+            for (File file : files) {
+                tasks.add(pool.submit(() -> loadFile(file)));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                String source = getSourceName(files.get(i));
+                try {
+                    sources.put(source, tasks.get(i).get());
+                } catch (ExecutionException e) {
+                    if (source.equals(MAIN_SOURCE)) {
+                        if (e.getCause() instanceof IOException cause) {
+                            throw cause;
+                        }
+                        if (e.getCause() instanceof InvalidConfigurationException cause) {
+                            throw cause;
+                        }
+                        throw new IOException("Could not parse quests", e.getCause());
+                    }
+                    plugin.getLogger().severe("Could not load " + source + ", skipping its quests: " + e.getCause().getMessage());
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing quests", e);
+        } finally {
+            pool.shutdown();
+        }
+        
+        parseCache.retain(sources.keySet());
+        saveParseCache();
+        return QuestCatalog.build(sources, QuestCatalog.EMPTY, plugin.getLogger());
+    }
+    
+    /**
+     * Get the source name of a quest file: quests.yml or quests.d/&lt;file&gt;
+     */
+    public String getSourceName(File file) {
+        return file.equals(questsFile) ? MAIN_SOURCE : PACK_DIRECTORY + "/" + file.getName();
+    }
+    
+    /**
+     * Get the quests of a file from the parse cache, or parse it if it changed
+     */
+    private List<Quest> loadFile(File file) throws IOException, InvalidConfigurationException {
+        String source = getSourceName(file);
+        byte[] contents = Files.readAllBytes(file.toPath());
+        byte[] hash = QuestParseCache.hash(contents);
+        List<Quest> cached = parseCache.get(source, hash);
+        if (cached != null) {
+            return cached;
+        }
+        
+        // Unlike loadConfiguration this fails on a broken file instead of returning it empty
+        FileConfiguration config = new YamlConfiguration();
+        try {
+            config.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new InvalidConfigurationException(source + ": " + e.getMessage());
+        }
+        List<Quest> quests = parseQuests(config);
+        parseCache.put(source, hash, quests);
+        return quests;
+    }
+    
+    private void saveParseCache() {
+        try {
+            parseCache.save();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save quest-cache.bin: " + e.getMessage());
+        }
+    }
+    
+    private List<Quest> parseQuests(FileConfiguration config) {
+        List<Quest> quests = new ArrayList<>();
         
         if (config.contains("quests")) {
             for (String key : config.getConfigurationSection("quests").getKeys(false)) {
@@ -132,77 +294,163 @@ public class QuestManager {
                 }
                 
                 quest.setActive(active);
-                quests.put(id, quest);
+                quests.add(quest);
             }
         }
+        
+        return quests;
     }
     
-    public void saveQuests() {
-        FileConfiguration config = new YamlConfiguration();
+    /**
+     * Re-read a single quest file after it changed on disk and swap in a catalog where
+     * only that file's quests were replaced. Quests whose definition didn't change keep
+     * their compiled objectives and rewards, and only players' open quests for the
+     * changed ones are re-checked. Parses on the calling thread, never call it from the main thread.
+     */
+    public void reloadSource(File file) {
+        String source = getSourceName(file);
+        List<Quest> parsed;
+        try {
+            parsed = file.exists() ? loadFile(file) : null; // A deleted pack takes its quests with it
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().severe("Could not reload " + source + ", keeping its current quests!");
+            e.printStackTrace();
+            return;
+        }
+        if (parsed == null && source.equals(MAIN_SOURCE)) {
+            return; // Recreated with the defaults on the next full load
+        }
+        saveParseCache();
         
-        for (Quest quest : quests.values()) {
-            String key = "quests." + quest.getId();
-            config.set(key + ".name", quest.getName());
-            config.set(key + ".description", quest.getDescription());
-            config.set(key + ".type", quest.getType().name());
-            config.set(key + ".reward", quest.getReward());
-            config.set(key + ".active", quest.isActive());
-            
-            // Save block targets for mining, breaking, and placing quests
-            if ((quest.getType() == QuestType.MINE_BLOCKS || quest.getType() == QuestType.BREAK_BLOCKS || 
-                 quest.getType() == QuestType.PLACE_BLOCKS) && quest.hasBlockTargets()) {
-                for (Map.Entry<String, Integer> entry : quest.getBlockTargets().entrySet()) {
-                    config.set(key + ".blocks." + entry.getKey(), entry.getValue());
-                }
-            } else if (quest.getType() == QuestType.CRAFT_ITEMS && quest.hasBlockTargets()) {
-                // Save item targets for crafting quests (uses blockTargets internally)
-                for (Map.Entry<String, Integer> entry : quest.getBlockTargets().entrySet()) {
-                    config.set(key + ".items." + entry.getKey(), entry.getValue());
-                }
-            } else if (quest.getType() == QuestType.KILL_MOBS && quest.hasMobTargets()) {
-                // Save mob targets for kill quests
-                for (Map.Entry<String, Integer> entry : quest.getMobTargets().entrySet()) {
-                    config.set(key + ".mobs." + entry.getKey(), entry.getValue());
-                }
-            } else {
-                config.set(key + ".targetAmount", quest.getTargetAmount());
-            }
-            
-            // Save structured rewards if present
-            if (quest.hasStructuredRewards()) {
-                for (Map.Entry<String, Integer> entry : quest.getStructuredRewards().entrySet()) {
-                    config.set(key + ".rewards." + entry.getKey(), entry.getValue());
+        QuestCatalog base = catalog;
+        Map<String, Quest> previous = new HashMap<>();
+        for (Quest quest : base.getSourceQuests(source)) {
+            previous.put(quest.getId(), quest);
+        }
+        
+        // Carry over unchanged quests, collect the IDs of everything added, changed or removed
+        List<Quest> merged = new ArrayList<>();
+        Set<String> changed = new HashSet<>(previous.keySet());
+        if (parsed != null) {
+            for (Quest quest : parsed) {
+                Quest old = previous.get(quest.getId());
+                if (old == quest || old != null && getFingerprint(old).equals(getFingerprint(quest))) {
+                    merged.add(old);
+                    changed.remove(quest.getId());
+                } else {
+                    merged.add(quest);
+                    changed.add(quest.getId());
                 }
             }
-            
-            // Save prerequisite if present
-            if (quest.hasPrerequisite()) {
-                config.set(key + ".prerequisite", quest.getPrerequisite());
-            }
-            
-            // Save GUI customization if present
-            if (quest.hasCustomGuiSlot()) {
-                config.set(key + ".gui_slot", quest.getGuiSlot());
-            }
-            if (quest.hasCustomGuiIcon()) {
-                config.set(key + ".gui_icon", quest.getGuiIcon());
+        }
+        if (changed.isEmpty()) {
+            return; // Saved without changes
+        }
+        
+        QuestCatalog updated = QuestCatalog.build(withSource(base, source, parsed != null ? merged : null), 
+            base, plugin.getLogger());
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (catalog != base) {
+                // Quests changed while we were parsing, apply the file on top of the current ones
+                setCatalog(QuestCatalog.build(withSource(catalog, source, parsed != null ? merged : null), 
+                    catalog, plugin.getLogger()));
+            } else {
+                setCatalog(updated, changed);
             }
-            
-            // Save XP reward if present
-            if (quest.getXpReward() > 0) {
-                config.set(key + ".xp_reward", quest.getXpReward());
+            plugin.getLogger().info("Reloaded " + source + " (" + changed.size() + " quests changed)");
+        });
+    }
+    
+    /**
+     * Sources of a catalog with one of them replaced
+     * @param quests The new quests of the source, or null to remove it
+     */
+    private static Map<String, List<Quest>> withSource(QuestCatalog catalog, String source, List<Quest> quests) {
+        Map<String, List<Quest>> sources = new TreeMap<>(SOURCE_ORDER);
+        sources.putAll(catalog.getSources());
+        if (quests != null) {
+            sources.put(source, quests);
+        } else {
+            sources.remove(source);
+        }
+        return sources;
+    }
+    
+    /**
+     * The quest as it would be saved, two quests with the same fingerprint are defined the same
+     */
+    private static String getFingerprint(Quest quest) {
+        FileConfiguration config = new YamlConfiguration();
+        writeQuest(config, "quest", quest);
+        return config.saveToString();
+    }
+    
+    /**
+     * Make a catalog live, main thread only
+     */
+    private void setCatalog(QuestCatalog catalog) {
+        this.catalog = catalog;
+        
+        // Which quests are open depends on the quest definitions
+        if (plugin.getProgressManager() != null) {
+            plugin.getProgressManager().invalidateAllOpenQuests();
+        }
+    }
+    
+    /**
+     * Make a catalog live that only differs from the current one in a few quests, main thread only
+     */
+    private void setCatalog(QuestCatalog catalog, Set<String> changedQuests) {
+        QuestIndex oldIndex = this.catalog.getIndex();
+        this.catalog = catalog;
+        
+        // A changed quest can open or close itself and the quests that require it
+        Set<String> affected = new HashSet<>(changedQuests);
+        for (String questId : changedQuests) {
+            for (Quest dependent : oldIndex.getDependents(questId)) {
+                affected.add(dependent.getId());
             }
-            
-            // Save enchantments if present
-            if (quest.hasEnchantments()) {
-                for (Map.Entry<String, Map<String, Integer>> entry : quest.getItemEnchantments().entrySet()) {
-                    String itemMaterial = entry.getKey();
-                    for (Map.Entry<String, Integer> enchant : entry.getValue().entrySet()) {
-                        config.set(key + ".enchantments." + itemMaterial + "." + enchant.getKey(), enchant.getValue());
-                    }
-                }
+            for (Quest dependent : catalog.getIndex().getDependents(questId)) {
+                affected.add(dependent.getId());
             }
         }
+        if (plugin.getProgressManager() != null) {
+            plugin.getProgressManager().refreshOpenQuests(affected);
+        }
+    }
+    
+    /**
+     * Get the current quest snapshot. Hold on to it instead of calling
+     * this repeatedly to see one consistent set of quests.
+     */
+    public QuestCatalog getCatalog() {
+        return catalog;
+    }
+    
+    /**
+     * Get the quest lookup for event listeners
+     */
+    public QuestIndex getQuestIndex() {
+        return catalog.getIndex();
+    }
+    
+    /**
+     * Save the quests of quests.yml, packs in quests.d are only ever edited by hand
+     */
+    public void saveQuests() {
+        if (!questsFileLoaded) {
+            plugin.getLogger().warning("quests.yml was not loaded, leaving it untouched");
+            return;
+        }
+        
+        FileConfiguration config = new YamlConfiguration();
+        
+        for (Quest quest : catalog.getSourceQuests(MAIN_SOURCE)) {
+            writeQuest(config, "quests." + quest.getId(), quest);
+        }
         
         try {
             config.save(questsFile);
@@ -212,6 +460,69 @@ public class QuestManager {
         }
     }
     
+    private static void writeQuest(FileConfiguration config, String key, Quest quest) {
+        config.set(key + ".name", quest.getName());
+        config.set(key + ".description", quest.getDescription());
+        config.set(key + ".type", quest.getType().name());
+        config.set(key + ".reward", quest.getReward());
+        config.set(key + ".active", quest.isActive());
+        
+        // Save block targets for mining, breaking, and placing quests
+        if ((quest.getType() == QuestType.MINE_BLOCKS || quest.getType() == QuestType.BREAK_BLOCKS || 
+             quest.getType() == QuestType.PLACE_BLOCKS) && quest.hasBlockTargets()) {
+            for (Map.Entry<String, Integer> entry : quest.getBlockTargets().entrySet()) {
+                config.set(key + ".blocks." + entry.getKey(), entry.getValue());
+            }
+        } else if (quest.getType() == QuestType.CRAFT_ITEMS && quest.hasBlockTargets()) {
+            // Save item targets for crafting quests (uses blockTargets internally)
+            for (Map.Entry<String, Integer> entry : quest.getBlockTargets().entrySet()) {
+                config.set(key + ".items." + entry.getKey(), entry.getValue());
+            }
+        } else if (quest.getType() == QuestType.KILL_MOBS && quest.hasMobTargets()) {
+            // Save mob targets for kill quests
+            for (Map.Entry<String, Integer> entry : quest.getMobTargets().entrySet()) {
+                config.set(key + ".mobs." + entry.getKey(), entry.getValue());
+            }
+        } else {
+            config.set(key + ".targetAmount", quest.getTargetAmount());
+        }
+        
+        // Save structured rewards if present
+        if (quest.hasStructuredRewards()) {
+            for (Map.Entry<String, Integer> entry : quest.getStructuredRewards().entrySet()) {
+                config.set(key + ".rewards." + entry.getKey(), entry.getValue());
+            }
+        }
+        
+        // Save prerequisite if present
+        if (quest.hasPrerequisite()) {
+            config.set(key + ".prerequisite", quest.getPrerequisite());
+        }
+        
+        // Save GUI customization if present
+        if (quest.hasCustomGuiSlot()) {
+            config.set(key + ".gui_slot", quest.getGuiSlot());
+        }
+        if (quest.hasCustomGuiIcon()) {
+            config.set(key + ".gui_icon", quest.getGuiIcon());
+        }
+        
+        // Save XP reward if present
+        if (quest.getXpReward() > 0) {
+            config.set(key + ".xp_reward", quest.getXpReward());
+        }
+        
+        // Save enchantments if present
+        if (quest.hasEnchantments()) {
+            for (Map.Entry<String, Map<String, Integer>> entry : quest.getItemEnchantments().entrySet()) {
+                String itemMaterial = entry.getKey();
+                for (Map.Entry<String, Integer> enchant : entry.getValue().entrySet()) {
+                    config.set(key + ".enchantments." + itemMaterial + "." + enchant.getKey(), enchant.getValue());
+                }
+            }
+        }
+    }
+    
     private void createDefaultQuests() {
         FileConfiguration config = new YamlConfiguration();
         
@@ -354,58 +665,47 @@ public class QuestManager {
     }
     
     public Collection<Quest> getAllQuests() {
-        return quests.values();
+        return catalog.getQuests();
     }
     
     public Quest getQuest(String id) {
-        return quests.get(id);
+        return catalog.getQuest(id);
     }
     
+    /**
+     * Add or replace a quest in quests.yml
+     */
     public void addQuest(Quest quest) {
-        quests.put(quest.getId(), quest);
+        List<Quest> quests = new ArrayList<>(catalog.getSourceQuests(MAIN_SOURCE));
+        quests.removeIf(existing -> existing.getId().equals(quest.getId()));
+        quests.add(quest);
+        setCatalog(QuestCatalog.build(withSource(catalog, MAIN_SOURCE, quests), catalog, plugin.getLogger()));
         saveQuests();
     }
     
+    /**
+     * Remove a quest from quests.yml
+     */
     public void removeQuest(String id) {
-        quests.remove(id);
+        List<Quest> quests = new ArrayList<>(catalog.getSourceQuests(MAIN_SOURCE));
+        quests.removeIf(quest -> quest.getId().equals(id));
+        setCatalog(QuestCatalog.build(withSource(catalog, MAIN_SOURCE, quests), catalog, plugin.getLogger()));
         saveQuests();
     }
     
     public List<Quest> getActiveQuests() {
-        List<Quest> active = new ArrayList<>();
-        for (Quest quest : quests.values()) {
-            if (quest.isActive()) {
-                active.add(quest);
-            }
-        }
-        return active;
+        return catalog.getActiveQuests();
     }
     
     /**
      * Check if a quest is available to a player (prerequisite is completed)
      * @param playerId Player's UUID
      * @param questId Quest ID to check
-     * @return true if quest has no prerequisite or prerequisite is completed
+     * @return true if quest is active and has no prerequisite or prerequisite is completed
      */
     public boolean isQuestAvailable(UUID playerId, String questId) {
-        Quest quest = getQuest(questId);
-        if (quest == null || !quest.isActive()) {
-            return false;
-        }
-        
-        // If prerequisites are disabled, all quests are available
-        if (!plugin.getConfig().getBoolean("enable-prerequisites", true)) {
-            return true;
-        }
-        
-        // If quest has no prerequisite, it's available
-        if (!quest.hasPrerequisite()) {
-            return true;
-        }
-        
-        // Check if prerequisite quest is completed
-        String prerequisiteId = quest.getPrerequisite();
-        return plugin.getProgressManager().isQuestComplete(playerId, prerequisiteId);
+        // Kept per player from the prerequisite graph, updated as quests complete
+        return plugin.getProgressManager().isQuestUnlocked(playerId, questId);
     }
     
     /**
@@ -3,8 +3,10 @@ package com.questlogs.managers;
 import com.questlogs.QuestLogsPlugin;
 import com.questlogs.database.DatabaseManager;
 import com.questlogs.models.PlayerStats;
+import com.questlogs.models.StatsDelta;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -16,35 +18,152 @@ public class StatsManager {
     private final Logger logger;
     private final DatabaseManager database;
     
-    // Cache of player stats (playerId -> PlayerStats)
+    // Cache of player stats (playerId -> PlayerStats), least recently used first.
+    // Iterating it needs a lock on the map, the database thread can put entries back.
     private final Map<UUID, PlayerStats> playerStats;
     
+    // Stats loaded during async pre-login, waiting to be picked up on the main thread
+    private final Map<UUID, PlayerStats> prefetched;
+    
+    // Cache limits. Online players are never evicted, offline players are dropped
+    // once they are idle too long or the cache grows past its size.
+    private final int maxCacheSize;
+    private final long cacheExpireMillis;
+    
+    // Cache counters, shown by /questadmin cache
+    private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+    
     public StatsManager(QuestLogsPlugin plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
         this.database = new DatabaseManager(plugin);
-        this.playerStats = new HashMap<>();
+        this.playerStats = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true)); // Access order for LRU eviction
+        this.prefetched = new ConcurrentHashMap<>();
+        this.maxCacheSize = Math.max(10, plugin.getConfig().getInt("stats-cache-size", 1000));
+        this.cacheExpireMillis = Math.max(0, plugin.getConfig().getInt("stats-cache-expire", 600)) * 1000L;
         
         loadStats();
         
-        // Auto-save stats periodically
+        // Auto-save stats periodically. Collecting the changes is cheap and happens on the
+        // main thread, the database thread writes them in a single transaction.
         int saveInterval = plugin.getConfig().getInt("auto-save-interval", 300) * 20; // Convert seconds to ticks
-        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, 
+        plugin.getServer().getScheduler().runTaskTimer(plugin, 
             this::saveStats, saveInterval, saveInterval);
     }
     
     /**
-     * Get or create player stats (loads from database if not in cache)
+     * Get or create player stats. Never waits on the database: players who are not
+     * loaded yet get a placeholder that records changes until their stats arrive.
      */
     public PlayerStats getPlayerStats(UUID playerId) {
-        return playerStats.computeIfAbsent(playerId, id -> database.loadPlayerStats(id));
+        PlayerStats stats = playerStats.get(playerId);
+        if (stats != null) {
+            cacheHits++;
+            stats.touch();
+            return stats;
+        }
+        
+        cacheMisses++;
+        stats = prefetched.remove(playerId);
+        if (stats == null) {
+            stats = PlayerStats.placeholder(playerId);
+            loadInBackground(playerId);
+        }
+        stats.touch();
+        playerStats.put(playerId, stats);
+        
+        if (playerStats.size() > maxCacheSize) {
+            Map<UUID, StatsDelta> writeBack = new HashMap<>();
+            Map<UUID, PlayerStats> evicted = new HashMap<>();
+            evictIdlePlayers(writeBack, evicted);
+            writeStats(writeBack, evicted);
+        }
+        return stats;
+    }
+    
+    /**
+     * Drop offline players that expired, then the least recently used offline players
+     * until the cache is back under 90% of its size. Their unsaved changes are added
+     * to writeBack so they reach the database before anyone can load them again.
+     * Walks the cache from its least recently used end and stops at the first player
+     * that can stay, so a miss never has to look at the whole cache.
+     */
+    private void evictIdlePlayers(Map<UUID, StatsDelta> writeBack, Map<UUID, PlayerStats> evicted) {
+        long now = System.currentTimeMillis();
+        synchronized (playerStats) {
+            int excess = playerStats.size() - (maxCacheSize * 9 / 10);
+            Iterator<PlayerStats> iterator = playerStats.values().iterator();
+            while (iterator.hasNext()) {
+                PlayerStats stats = iterator.next();
+                boolean expired = now - stats.getLastAccess() > cacheExpireMillis;
+                if (!expired && excess <= 0) {
+                    break; // Oldest first, so everyone after this is newer
+                }
+                UUID playerId = stats.getPlayerId();
+                if (plugin.getServer().getPlayer(playerId) != null) {
+                    continue; // Online players stay
+                }
+                
+                iterator.remove();
+                evicted.put(playerId, stats);
+                StatsDelta delta = stats.drainChanges();
+                if (!delta.isEmpty()) {
+                    writeBack.put(playerId, delta);
+                }
+                excess--;
+                cacheEvictions++;
+            }
+        }
+    }
+    
+    /**
+     * Load a player's stats ahead of time. Called from the async pre-login
+     * event so joining never runs SQL on the main thread.
+     */
+    public void prefetchPlayer(UUID playerId) {
+        if (playerStats.containsKey(playerId) || prefetched.containsKey(playerId)) {
+            return; // Still cached from an earlier session
+        }
+        
+        PlayerStats loaded = database.loadPlayerStats(playerId).join();
+        if (!playerStats.containsKey(playerId)) {
+            prefetched.put(playerId, loaded);
+        }
+    }
+    
+    /**
+     * Drop prefetched stats that were never picked up (e.g. the login was denied later on)
+     */
+    public void discardPrefetched(UUID playerId) {
+        prefetched.remove(playerId);
+    }
+    
+    /**
+     * Load stats for a placeholder and merge them in on the main thread
+     */
+    private void loadInBackground(UUID playerId) {
+        database.loadPlayerStats(playerId).thenAccept(loaded -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                PlayerStats current = playerStats.get(playerId);
+                if (current != null) {
+                    current.applyLoaded(loaded);
+                }
+            });
+        });
     }
     
     /**
      * Get all player stats
      */
     public Collection<PlayerStats> getAllStats() {
-        return new ArrayList<>(playerStats.values());
+        synchronized (playerStats) {
+            return new ArrayList<>(playerStats.values());
+        }
     }
     
     /**
@@ -54,7 +173,7 @@ public class StatsManager {
         playerStats.clear();
         
         // Load all player IDs from database
-        Set<UUID> allPlayerIds = database.getAllPlayerIds();
+        Set<UUID> allPlayerIds = database.getAllPlayerIds().join();
         
         logger.info("Found " + allPlayerIds.size() + " players in database");
         
@@ -64,17 +183,65 @@ public class StatsManager {
     }
     
     /**
-     * Save stats to SQLite database
+     * Save stats to SQLite database. Idle offline players are evicted first,
+     * and their last changes go out in the same transaction.
      */
     public void saveStats() {
-        int savedCount = 0;
+        Map<UUID, StatsDelta> changes = new HashMap<>();
+        Map<UUID, PlayerStats> owners = new HashMap<>();
+        evictIdlePlayers(changes, owners);
+        
+        // Only players with changes since the last save are written. Placeholders can be
+        // flushed too: their load was queued first, and the deltas are additive.
+        synchronized (playerStats) {
+            for (PlayerStats stats : playerStats.values()) {
+                StatsDelta delta = stats.drainChanges();
+                if (!delta.isEmpty()) {
+                    changes.put(stats.getPlayerId(), delta);
+                    owners.put(stats.getPlayerId(), stats);
+                }
+            }
+        }
         
-        for (PlayerStats stats : playerStats.values()) {
-            database.savePlayerStats(stats);
-            savedCount++;
+        writeStats(changes, owners);
+    }
+    
+    /**
+     * Hand drained changes to the database, putting them back if the write fails
+     */
+    private void writeStats(Map<UUID, StatsDelta> changes, Map<UUID, PlayerStats> owners) {
+        if (changes.isEmpty()) {
+            return;
         }
         
-        logger.info("Saved stats for " + savedCount + " players to database");
+        database.saveStats(changes).thenAccept(saved -> {
+            if (saved) {
+                logger.info("Saved stats for " + changes.size() + " players to database");
+                return;
+            }
+            
+            // Put the changes back so the next save retries them. Evicted players
+            // go back into the cache so their changes aren't dropped.
+            for (Map.Entry<UUID, StatsDelta> entry : changes.entrySet()) {
+                PlayerStats owner = owners.get(entry.getKey());
+                PlayerStats current = playerStats.putIfAbsent(entry.getKey(), owner);
+                (current != null ? current : owner).restoreChanges(entry.getValue());
+            }
+        });
+    }
+    
+    /**
+     * Describe the stats cache for /questadmin cache
+     */
+    public List<String> getCacheInfo() {
+        long lookups = cacheHits + cacheMisses;
+        double hitRate = lookups == 0 ? 0 : cacheHits * 100.0 / lookups;
+        
+        List<String> info = new ArrayList<>();
+        info.add("Cached players: " + playerStats.size() + "/" + maxCacheSize);
+        info.add("Hits: " + cacheHits + ", misses: " + cacheMisses + String.format(" (%.1f%% hit rate)", hitRate));
+        info.add("Evictions: " + cacheEvictions);
+        return info;
     }
     
     /**
@@ -82,9 +249,8 @@ public class StatsManager {
      */
     public void clearPlayerStats(UUID playerId) {
         playerStats.remove(playerId);
-        // Create new empty stats to clear database
-        PlayerStats emptyStats = new PlayerStats(playerId);
-        database.savePlayerStats(emptyStats);
+        prefetched.remove(playerId);
+        database.deletePlayerStats(playerId);
     }
     
     /**
@@ -100,7 +266,7 @@ public class StatsManager {
      * Close database connection (called on plugin disable)
      */
     public void close() {
-        saveStats(); // Save any pending changes
+        saveStats(); // Queue any pending changes, close() waits for the queue to drain
         database.close();
     }
     
@@ -0,0 +1,41 @@
+package com.questlogs.models;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+/**
+ * Kinds of player activity recorded by the listeners.
+ * The key of an activity is a Material ordinal for block and item activities,
+ * an EntityType ordinal for KILL and always 0 for EXPLORE.
+ * Names match the action types challenges check for.
+ */
+public enum ActivityType {
+    MINE,
+    BREAK,
+    PLACE,
+    CRAFT,
+    KILL,
+    EXPLORE;
+    
+    public Material getMaterial(int key) {
+        return PlayerStats.MATERIALS[key];
+    }
+    
+    public EntityType getEntityType(int key) {
+        return PlayerStats.ENTITY_TYPES[key];
+    }
+    
+    /**
+     * Get the name of a key as used by quest and challenge targets
+     */
+    public String getKeyName(int key) {
+        switch (this) {
+            case KILL:
+                return PlayerStats.ENTITY_TYPES[key].name();
+            case EXPLORE:
+                return "ANY";
+            default:
+                return PlayerStats.MATERIALS[key].name();
+        }
+    }
+}
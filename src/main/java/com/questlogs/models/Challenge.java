@@ -1,7 +1,11 @@
 package com.questlogs.models;
 
+import org.bukkit.entity.Player;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Represents a timed server-wide challenge/mini-game
@@ -13,26 +17,47 @@ public class Challenge {
     private final String description;
     private final ChallengeType type;
     private final String target; // Block type, mob type, or item type
+    private final ChallengeMatcher matcher;
+    private final Set<String> worlds; // World names that count, null for every world
+    private final String permission; // Needed to take part, null for everyone
     private final int duration; // Duration in seconds
     private final Map<Integer, Map<String, Integer>> rewards; // Place -> (Item -> Amount)
     private final long startTime;
     private final long endTime;
     
-    // Player progress during this challenge (playerId -> amount)
-    private final Map<String, Integer> progress;
+    // Player progress during this challenge (player ID -> amount), kept ranked
+    private final Leaderboard<UUID> progress;
+    
+    // Last known name of every participant, only used to show results
+    private final Map<UUID, String> names;
+    
+    public Challenge(String id, String name, String description, ChallengeType type, 
+                     String target, ChallengeMatcher matcher, Set<String> worlds, String permission,
+                     int duration, Map<Integer, Map<String, Integer>> rewards) {
+        this(id, name, description, type, target, matcher, worlds, permission,
+            System.currentTimeMillis(), duration, rewards);
+    }
     
+    /**
+     * Create a challenge that started at the given time, for resuming one after a restart
+     */
     public Challenge(String id, String name, String description, ChallengeType type, 
-                     String target, int duration, Map<Integer, Map<String, Integer>> rewards) {
+                     String target, ChallengeMatcher matcher, Set<String> worlds, String permission,
+                     long startTime, int duration, Map<Integer, Map<String, Integer>> rewards) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.type = type;
         this.target = target;
+        this.matcher = matcher;
+        this.worlds = worlds;
+        this.permission = permission;
         this.duration = duration;
         this.rewards = rewards;
-        this.startTime = System.currentTimeMillis();
+        this.startTime = startTime;
         this.endTime = startTime + (duration * 1000L);
-        this.progress = new HashMap<>();
+        this.progress = new Leaderboard<>();
+        this.names = new HashMap<>();
     }
     
     // Getters
@@ -56,6 +81,29 @@ public class Challenge {
         return target;
     }
     
+    /**
+     * The challenge's action and targets, compiled for matching activity
+     */
+    public ChallengeMatcher getMatcher() {
+        return matcher;
+    }
+    
+    public Set<String> getWorlds() {
+        return worlds;
+    }
+    
+    public String getPermission() {
+        return permission;
+    }
+    
+    /**
+     * Check if a player may take part, given the world they are in
+     */
+    public boolean accepts(Player player) {
+        return (permission == null || player.hasPermission(permission)) &&
+            (worlds == null || worlds.contains(player.getWorld().getName()));
+    }
+    
     public int getDuration() {
         return duration;
     }
@@ -72,17 +120,34 @@ public class Challenge {
         return endTime;
     }
     
-    public Map<String, Integer> getProgress() {
-        return new HashMap<>(progress);
+    public Leaderboard<UUID> getProgress() {
+        return progress;
+    }
+    
+    // Progress tracking, participants keep their standing when they log out or rename
+    public void addProgress(UUID playerId, String playerName, long amount) {
+        if (!progress.contains(playerId)) {
+            names.put(playerId, playerName);
+        }
+        progress.add(playerId, amount);
+    }
+    
+    public long getPlayerProgress(UUID playerId) {
+        return progress.getScore(playerId);
     }
     
-    // Progress tracking
-    public void addProgress(String playerName, int amount) {
-        progress.put(playerName, progress.getOrDefault(playerName, 0) + amount);
+    /**
+     * @return 1-based place of a player, or -1 if they haven't scored
+     */
+    public int getPlayerRank(UUID playerId) {
+        return progress.getRank(playerId);
     }
     
-    public int getPlayerProgress(String playerName) {
-        return progress.getOrDefault(playerName, 0);
+    /**
+     * Name of a participant as of when they joined the challenge
+     */
+    public String getPlayerName(UUID playerId) {
+        return names.getOrDefault(playerId, playerId.toString());
     }
     
     // Check if challenge is active
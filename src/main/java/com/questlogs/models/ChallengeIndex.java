@@ -0,0 +1,82 @@
+package com.questlogs.models;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable lookup from an activity to the running challenges it counts for.
+ * Per action there is an array indexed by target ordinal whose entries already
+ * include the challenges that accept any target, so a lookup is two array reads
+ * no matter how many challenges run at once. Rebuilt whenever a challenge starts or ends.
+ */
+public final class ChallengeIndex {
+    
+    private static final Challenge[] NONE = new Challenge[0];
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+    
+    public static final ChallengeIndex EMPTY = build(new ArrayList<>()); // After NONE, build uses it
+    
+    // Action -> challenges accepting any target
+    private final Challenge[][] anyTarget;
+    
+    // Action -> target ordinal -> challenges for that target plus anyTarget, null if none target it
+    private final Challenge[][][] byTarget;
+    
+    private ChallengeIndex(Challenge[][] anyTarget, Challenge[][][] byTarget) {
+        this.anyTarget = anyTarget;
+        this.byTarget = byTarget;
+    }
+    
+    public static ChallengeIndex build(Collection<Challenge> challenges) {
+        Challenge[][] anyTarget = new Challenge[ACTIVITY_TYPES.length][];
+        Challenge[][][] byTarget = new Challenge[ACTIVITY_TYPES.length][][];
+        
+        for (ActivityType type : ACTIVITY_TYPES) {
+            List<Challenge> any = new ArrayList<>();
+            List<Challenge> targeted = new ArrayList<>();
+            BitSet allTargets = new BitSet();
+            for (Challenge challenge : challenges) {
+                ChallengeMatcher matcher = challenge.getMatcher();
+                if (matcher.getAction() != type) {
+                    continue;
+                }
+                BitSet targets = matcher.getTargets();
+                if (targets == null) {
+                    any.add(challenge);
+                } else {
+                    targeted.add(challenge);
+                    allTargets.or(targets);
+                }
+            }
+            
+            anyTarget[type.ordinal()] = any.isEmpty() ? NONE : any.toArray(NONE);
+            Challenge[][] keys = new Challenge[allTargets.length()][];
+            for (int key = allTargets.nextSetBit(0); key >= 0; key = allTargets.nextSetBit(key + 1)) {
+                List<Challenge> matching = new ArrayList<>(any);
+                for (Challenge challenge : targeted) {
+                    if (challenge.getMatcher().matches(type, key)) {
+                        matching.add(challenge);
+                    }
+                }
+                keys[key] = matching.toArray(NONE);
+            }
+            byTarget[type.ordinal()] = keys;
+        }
+        return new ChallengeIndex(anyTarget, byTarget);
+    }
+    
+    /**
+     * Get the challenges an activity counts for, before world and permission filters
+     * @param key Material or EntityType ordinal, see {@link ActivityType}
+     * @return Matching challenges, empty if none. Don't modify.
+     */
+    public Challenge[] get(ActivityType type, int key) {
+        Challenge[][] keys = byTarget[type.ordinal()];
+        if (key >= 0 && key < keys.length && keys[key] != null) {
+            return keys[key];
+        }
+        return anyTarget[type.ordinal()];
+    }
+}
@@ -0,0 +1,75 @@
+package com.questlogs.models;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * A challenge's action and targets compiled for the activity path: the action
+ * is an {@link ActivityType} and the targets a bit set over Material or
+ * EntityType ordinals, so matching an activity is an enum compare and a bit test.
+ * Immutable.
+ */
+public final class ChallengeMatcher {
+    
+    private final ActivityType action;
+    private final BitSet targets; // null matches any target
+    
+    private ChallengeMatcher(ActivityType action, BitSet targets) {
+        this.action = action;
+        this.targets = targets;
+    }
+    
+    /**
+     * Compile the targets of a challenge. "ANY" (or no target) matches everything,
+     * unknown names are logged and left out.
+     * @param targetNames Material names, or mob names for kill challenges
+     */
+    public static ChallengeMatcher compile(String challengeId, ChallengeType type, List<String> targetNames, Logger logger) {
+        ActivityType action = type.getAction();
+        if (action == ActivityType.EXPLORE || targetNames.isEmpty() || targetNames.contains("ANY")) {
+            return new ChallengeMatcher(action, null); // Exploration doesn't need target match
+        }
+        
+        BitSet targets = new BitSet();
+        for (String name : targetNames) {
+            if (action == ActivityType.KILL) {
+                try {
+                    targets.set(EntityType.valueOf(name).ordinal());
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Challenge " + challengeId + " targets unknown mob: " + name);
+                }
+            } else {
+                Material material = Material.getMaterial(name);
+                if (material != null) {
+                    targets.set(material.ordinal());
+                } else {
+                    logger.warning("Challenge " + challengeId + " targets unknown material: " + name);
+                }
+            }
+        }
+        return new ChallengeMatcher(action, targets);
+    }
+    
+    /**
+     * Check if an activity counts for the challenge
+     * @param key Material or EntityType ordinal, see {@link ActivityType}
+     */
+    public boolean matches(ActivityType type, int key) {
+        return type == action && (targets == null || targets.get(key));
+    }
+    
+    public ActivityType getAction() {
+        return action;
+    }
+    
+    /**
+     * @return A copy of the target ordinals, or null if any target counts
+     */
+    public BitSet getTargets() {
+        return targets != null ? (BitSet) targets.clone() : null;
+    }
+}
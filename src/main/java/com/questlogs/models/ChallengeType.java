@@ -4,23 +4,32 @@ package com.questlogs.models;
  * Types of challenges available
  */
 public enum ChallengeType {
-    MINE_BLOCKS("Mine the most"),
-    BREAK_BLOCKS("Break the most"),
-    PLACE_BLOCKS("Place the most"),
-    CRAFT_ITEMS("Craft the most"),
-    KILL_MOBS("Kill the most"),
-    EXPLORE_BLOCKS("Explore the most");
+    MINE_BLOCKS("Mine the most", ActivityType.MINE),
+    BREAK_BLOCKS("Break the most", ActivityType.BREAK),
+    PLACE_BLOCKS("Place the most", ActivityType.PLACE),
+    CRAFT_ITEMS("Craft the most", ActivityType.CRAFT),
+    KILL_MOBS("Kill the most", ActivityType.KILL),
+    EXPLORE_BLOCKS("Explore the most", ActivityType.EXPLORE);
     
     private final String displayPrefix;
+    private final ActivityType action;
     
-    ChallengeType(String displayPrefix) {
+    ChallengeType(String displayPrefix, ActivityType action) {
         this.displayPrefix = displayPrefix;
+        this.action = action;
     }
     
     public String getDisplayPrefix() {
         return displayPrefix;
     }
     
+    /**
+     * The activity that counts for this type of challenge
+     */
+    public ActivityType getAction() {
+        return action;
+    }
+    
     public static ChallengeType fromString(String type) {
         for (ChallengeType challengeType : values()) {
             if (challengeType.name().equalsIgnoreCase(type)) {
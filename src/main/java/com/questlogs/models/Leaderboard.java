@@ -0,0 +1,201 @@
+package com.questlogs.models;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Scores ranked highest first, kept in an order-statistic treap so adding to a
+ * score and looking up a rank are O(log n) and the top K are O(K + log n),
+ * without copying or sorting all participants. Equal scores are ranked by who
+ * reached the score first. Not thread-safe.
+ * @param <K> Participant key
+ */
+public class Leaderboard<K> {
+    
+    private static final class Node<K> {
+        private final K key;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private long score;
+        private long sequence; // When the score was reached, breaks ties
+        private int size = 1;
+        private Node<K> left;
+        private Node<K> right;
+        
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+    
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private Node<K> root;
+    private long nextSequence;
+    
+    /**
+     * Add to a participant's score
+     * @return The new score
+     */
+    public long add(K key, long amount) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            root = remove(root, node);
+            node.left = null;
+            node.right = null;
+            node.size = 1;
+        }
+        node.score += amount;
+        node.sequence = nextSequence++;
+        root = insert(root, node);
+        return node.score;
+    }
+    
+    public long getScore(K key) {
+        Node<K> node = nodes.get(key);
+        return node != null ? node.score : 0;
+    }
+    
+    public boolean contains(K key) {
+        return nodes.containsKey(key);
+    }
+    
+    public int size() {
+        return nodes.size();
+    }
+    
+    /**
+     * @return 1-based place of a participant, or -1 if they have no score
+     */
+    public int getRank(K key) {
+        Node<K> target = nodes.get(key);
+        if (target == null) {
+            return -1;
+        }
+        int rank = 1;
+        Node<K> current = root;
+        while (current != target) {
+            if (before(target, current)) {
+                current = current.left;
+            } else {
+                rank += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return rank + size(target.left);
+    }
+    
+    /**
+     * The highest scores, best first
+     * @param limit Maximum number of entries
+     */
+    public List<Map.Entry<K, Long>> top(int limit) {
+        List<Map.Entry<K, Long>> top = new ArrayList<>(Math.min(limit, nodes.size()));
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        Node<K> current = root;
+        while (top.size() < limit && (current != null || !stack.isEmpty())) {
+            while (current != null) {
+                stack.push(current);
+                current = current.left;
+            }
+            Node<K> node = stack.pop();
+            top.add(new AbstractMap.SimpleImmutableEntry<>(node.key, node.score));
+            current = node.right;
+        }
+        return top;
+    }
+    
+    /**
+     * Check if a comes before b: higher score first, then whoever got there first
+     */
+    private static <K> boolean before(Node<K> a, Node<K> b) {
+        if (a.score != b.score) {
+            return a.score > b.score;
+        }
+        return a.sequence < b.sequence;
+    }
+    
+    private static <K> int size(Node<K> node) {
+        return node != null ? node.size : 0;
+    }
+    
+    private static <K> void update(Node<K> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+    
+    private static <K> Node<K> insert(Node<K> tree, Node<K> node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            // The new node becomes the root of this subtree
+            Node<K>[] parts = split(tree, node);
+            node.left = parts[0];
+            node.right = parts[1];
+            update(node);
+            return node;
+        }
+        if (before(node, tree)) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        update(tree);
+        return tree;
+    }
+    
+    private static <K> Node<K> remove(Node<K> tree, Node<K> node) {
+        if (tree == node) {
+            return merge(tree.left, tree.right);
+        }
+        if (before(node, tree)) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        update(tree);
+        return tree;
+    }
+    
+    /**
+     * Split a tree into the nodes before the given node and the nodes after it
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> Node<K>[] split(Node<K> tree, Node<K> node) {
+        if (tree == null) {
+            return new Node[] {null, null};
+        }
+        if (before(tree, node)) {
+            Node<K>[] parts = split(tree.right, node);
+            tree.right = parts[0];
+            update(tree);
+            parts[0] = tree;
+            return parts;
+        }
+        Node<K>[] parts = split(tree.left, node);
+        tree.left = parts[1];
+        update(tree);
+        parts[1] = tree;
+        return parts;
+    }
+    
+    /**
+     * Join two trees where every node of a comes before every node of b
+     */
+    private static <K> Node<K> merge(Node<K> a, Node<K> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+}
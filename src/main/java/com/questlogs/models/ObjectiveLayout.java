@@ -0,0 +1,100 @@
+package com.questlogs.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A quest's block/item and mob targets compiled into fixed slots
+ * (slot -> target, required amount), so a player's progress on the quest
+ * is a single int[] indexed by slot. Block targets come first, then mobs.
+ * Immutable, a new layout is compiled whenever the quest's targets change.
+ */
+public class ObjectiveLayout {
+    
+    private final ProgressChange.Kind[] kinds;
+    private final String[] targets;
+    private final int[] required;
+    private final Map<String, Integer> blockSlots;
+    private final Map<String, Integer> mobSlots;
+    
+    private ObjectiveLayout(int size) {
+        this.kinds = new ProgressChange.Kind[size];
+        this.targets = new String[size];
+        this.required = new int[size];
+        this.blockSlots = new HashMap<>();
+        this.mobSlots = new HashMap<>();
+    }
+    
+    /**
+     * Compile the targets of a quest, either map may be null
+     */
+    public static ObjectiveLayout compile(Map<String, Integer> blockTargets, Map<String, Integer> mobTargets) {
+        int blocks = blockTargets != null ? blockTargets.size() : 0;
+        int mobs = mobTargets != null ? mobTargets.size() : 0;
+        ObjectiveLayout layout = new ObjectiveLayout(blocks + mobs);
+        
+        int slot = 0;
+        if (blockTargets != null) {
+            for (Map.Entry<String, Integer> entry : blockTargets.entrySet()) {
+                layout.assign(slot++, ProgressChange.Kind.BLOCK, entry.getKey(), entry.getValue());
+            }
+        }
+        if (mobTargets != null) {
+            for (Map.Entry<String, Integer> entry : mobTargets.entrySet()) {
+                layout.assign(slot++, ProgressChange.Kind.MOB, entry.getKey(), entry.getValue());
+            }
+        }
+        return layout;
+    }
+    
+    private void assign(int slot, ProgressChange.Kind kind, String target, int amount) {
+        kinds[slot] = kind;
+        targets[slot] = target;
+        required[slot] = amount;
+        (kind == ProgressChange.Kind.MOB ? mobSlots : blockSlots).put(target, slot);
+    }
+    
+    public int size() {
+        return targets.length;
+    }
+    
+    /**
+     * @return The slot of a target, or -1 if the quest doesn't ask for it
+     */
+    public int slotOf(ProgressChange.Kind kind, String target) {
+        Integer slot = (kind == ProgressChange.Kind.MOB ? mobSlots : blockSlots).get(target);
+        return slot != null ? slot : -1;
+    }
+    
+    public int blockSlot(String blockType) {
+        return slotOf(ProgressChange.Kind.BLOCK, blockType);
+    }
+    
+    public int mobSlot(String mobType) {
+        return slotOf(ProgressChange.Kind.MOB, mobType);
+    }
+    
+    public ProgressChange.Kind getKind(int slot) {
+        return kinds[slot];
+    }
+    
+    public String getTarget(int slot) {
+        return targets[slot];
+    }
+    
+    public int getRequired(int slot) {
+        return required[slot];
+    }
+    
+    /**
+     * Check if every slot of the given counters has reached its target
+     */
+    public boolean isComplete(int[] counts) {
+        for (int slot = 0; slot < required.length; slot++) {
+            if (counts[slot] < required[slot]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
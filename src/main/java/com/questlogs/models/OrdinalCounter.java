@@ -0,0 +1,116 @@
+package com.questlogs.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts per enum constant (Material, EntityType) keyed by ordinal.
+ * A small open-addressing table of primitive ints, so counting never boxes
+ * or hashes a name. Names are only produced when saving or displaying.
+ * Not thread-safe, callers synchronize.
+ */
+public class OrdinalCounter {
+    
+    /**
+     * Receives each non-empty entry from {@link #forEach(Visitor)}
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int ordinal, int count);
+    }
+    
+    private static final int INITIAL_CAPACITY = 16; // Power of two, most players touch few keys
+    
+    private int[] keys;   // ordinal + 1, 0 marks an empty slot
+    private int[] counts;
+    private int size;
+    private long total;
+    
+    public OrdinalCounter() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.counts = new int[INITIAL_CAPACITY];
+    }
+    
+    public void add(int ordinal, int amount) {
+        int slot = findSlot(keys, ordinal + 1);
+        if (keys[slot] == 0) {
+            keys[slot] = ordinal + 1;
+            size++;
+            counts[slot] = amount;
+            if (size * 4 > keys.length * 3) {
+                grow(); // Keep the table under 75% full
+            }
+        } else {
+            counts[slot] += amount;
+        }
+        total += amount;
+    }
+    
+    public int get(int ordinal) {
+        int slot = findSlot(keys, ordinal + 1);
+        return keys[slot] == 0 ? 0 : counts[slot];
+    }
+    
+    /**
+     * @return Sum of all counts
+     */
+    public long total() {
+        return total;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                visitor.accept(keys[i] - 1, counts[i]);
+            }
+        }
+    }
+    
+    public void addAll(OrdinalCounter other) {
+        other.forEach(this::add);
+    }
+    
+    /**
+     * Convert to a name -> count map for storage or display
+     */
+    public Map<String, Integer> toNameMap(Enum<?>[] constants) {
+        Map<String, Integer> names = new HashMap<>();
+        forEach((ordinal, count) -> {
+            if (ordinal < constants.length) {
+                names.put(constants[ordinal].name(), count);
+            }
+        });
+        return names;
+    }
+    
+    private static int findSlot(int[] table, int key) {
+        int mask = table.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 16 & mask; // Spread sequential ordinals across the table
+        while (table[slot] != 0 && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = findSlot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
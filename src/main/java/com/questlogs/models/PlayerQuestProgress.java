@@ -1,21 +1,184 @@
 package com.questlogs.models;
 
 import java.util.UUID;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class PlayerQuestProgress {
     
     private UUID playerId;
     private Map<String, Integer> questProgress; // Quest ID -> Progress
-    private Map<String, Map<String, Integer>> blockProgress; // Quest ID -> (Block Material -> Count)
-    private Map<String, Map<String, Integer>> mobProgress; // Quest ID -> (Mob Type -> Count)
+    private Map<String, QuestObjectives> objectives; // Quest ID -> Counters in the quest's slot layout
+    private Map<String, Map<String, Integer>> unboundBlocks; // Quest ID -> (Block Material -> Count) not in a layout yet
+    private Map<String, Map<String, Integer>> unboundMobs; // Quest ID -> (Mob Type -> Count) not in a layout yet
+    private boolean dirty; // Changed since the last time it was handed to the writer
+    private Map<String, ProgressChange> changes; // Counter changes since the last snapshot
+    private boolean loading; // Placeholder waiting for the stored progress to load
+    
+    /**
+     * A player's counters for one quest, one int per objective slot.
+     * Counters for targets the layout doesn't have (just loaded from storage,
+     * or dropped from the quest) stay in the unbound maps so they are still saved.
+     */
+    private static final class QuestObjectives {
+        private final ObjectiveLayout layout;
+        private final int[] counts;
+        
+        private QuestObjectives(ObjectiveLayout layout, int[] counts) {
+            this.layout = layout;
+            this.counts = counts;
+        }
+    }
     
     public PlayerQuestProgress(UUID playerId) {
         this.playerId = playerId;
         this.questProgress = new HashMap<>();
-        this.blockProgress = new HashMap<>();
-        this.mobProgress = new HashMap<>();
+        this.objectives = new HashMap<>();
+        this.unboundBlocks = new HashMap<>();
+        this.unboundMobs = new HashMap<>();
+        this.dirty = false;
+        this.changes = new LinkedHashMap<>();
+    }
+    
+    /**
+     * Create a deep copy of this progress that the background writer can
+     * serialize while the main thread keeps mutating the original
+     */
+    public PlayerQuestProgress copy() {
+        PlayerQuestProgress copy = new PlayerQuestProgress(playerId);
+        copy.questProgress = new HashMap<>(questProgress);
+        for (Map.Entry<String, QuestObjectives> entry : objectives.entrySet()) {
+            QuestObjectives questObjectives = entry.getValue();
+            copy.objectives.put(entry.getKey(), new QuestObjectives(questObjectives.layout, questObjectives.counts.clone()));
+        }
+        copy.unboundBlocks = copyNested(unboundBlocks);
+        copy.unboundMobs = copyNested(unboundMobs);
+        return copy;
+    }
+    
+    private static Map<String, Map<String, Integer>> copyNested(Map<String, Map<String, Integer>> source) {
+        Map<String, Map<String, Integer>> copy = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : source.entrySet()) {
+            copy.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+        return copy;
+    }
+    
+    /**
+     * Create an empty placeholder that records changes while the stored progress loads
+     */
+    public static PlayerQuestProgress placeholder(UUID playerId) {
+        PlayerQuestProgress progress = new PlayerQuestProgress(playerId);
+        progress.loading = true;
+        return progress;
+    }
+    
+    public boolean isLoading() {
+        return loading;
+    }
+    
+    /**
+     * Fill a placeholder with the stored progress. Counters added to while loading
+     * keep their additions on top, counters that were set while loading keep the set value.
+     */
+    public void applyLoaded(PlayerQuestProgress loaded) {
+        if (!loading) {
+            return;
+        }
+        
+        for (Map.Entry<String, Integer> entry : loaded.questProgress.entrySet()) {
+            if (!wasSetWhileLoading(ProgressChange.Kind.QUEST, entry.getKey(), "")) {
+                questProgress.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        applyLoadedObjectives(ProgressChange.Kind.BLOCK, loaded.getBlockProgress());
+        applyLoadedObjectives(ProgressChange.Kind.MOB, loaded.getMobProgress());
+        
+        loading = false;
+    }
+    
+    private void applyLoadedObjectives(ProgressChange.Kind kind, Map<String, Map<String, Integer>> loaded) {
+        for (Map.Entry<String, Map<String, Integer>> quest : loaded.entrySet()) {
+            for (Map.Entry<String, Integer> entry : quest.getValue().entrySet()) {
+                if (!wasSetWhileLoading(kind, quest.getKey(), entry.getKey())) {
+                    updateObjective(kind, quest.getKey(), entry.getKey(), entry.getValue(), true);
+                }
+            }
+        }
+    }
+    
+    private boolean wasSetWhileLoading(ProgressChange.Kind kind, String questId, String target) {
+        ProgressChange change = changes.get(ProgressChange.key(kind, questId, target));
+        return change != null && change.isAbsolute();
+    }
+    
+    /**
+     * Copy this progress for the background writer and hand over the recorded
+     * changes with it. Afterwards this object is clean again.
+     */
+    public PlayerQuestProgress snapshot() {
+        PlayerQuestProgress snapshot = copy();
+        snapshot.changes = changes;
+        this.changes = new LinkedHashMap<>();
+        this.dirty = false;
+        return snapshot;
+    }
+    
+    /**
+     * Put the changes of an older snapshot that was never saved in front of ours
+     */
+    public void mergeOlderChanges(PlayerQuestProgress older) {
+        Map<String, ProgressChange> merged = new LinkedHashMap<>(older.changes);
+        for (ProgressChange change : changes.values()) {
+            ProgressChange previous = merged.remove(change.key());
+            if (previous != null) {
+                change.mergeOlder(previous);
+            }
+            merged.put(change.key(), change);
+        }
+        this.changes = merged;
+    }
+    
+    /**
+     * Record every stored value as a change, used when importing into another storage
+     */
+    public void markAllChanged() {
+        for (Map.Entry<String, Integer> entry : questProgress.entrySet()) {
+            recordSet(ProgressChange.Kind.QUEST, entry.getKey(), "", entry.getValue());
+        }
+        for (Map.Entry<String, Map<String, Integer>> quest : getBlockProgress().entrySet()) {
+            for (Map.Entry<String, Integer> entry : quest.getValue().entrySet()) {
+                recordSet(ProgressChange.Kind.BLOCK, quest.getKey(), entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Map<String, Integer>> quest : getMobProgress().entrySet()) {
+            for (Map.Entry<String, Integer> entry : quest.getValue().entrySet()) {
+                recordSet(ProgressChange.Kind.MOB, quest.getKey(), entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    public Collection<ProgressChange> getChanges() {
+        return changes.values();
+    }
+    
+    private void recordAdd(ProgressChange.Kind kind, String questId, String target, int amount) {
+        changes.computeIfAbsent(ProgressChange.key(kind, questId, target), 
+            k -> new ProgressChange(kind, questId, target)).add(amount);
+        dirty = true;
+    }
+    
+    private void recordSet(ProgressChange.Kind kind, String questId, String target, int amount) {
+        changes.computeIfAbsent(ProgressChange.key(kind, questId, target), 
+            k -> new ProgressChange(kind, questId, target)).set(amount);
+        dirty = true;
+    }
+    
+    // Dirty tracking for write-behind saving
+    public boolean isDirty() {
+        return dirty;
     }
     
     public UUID getPlayerId() {
@@ -40,69 +203,212 @@ public class PlayerQuestProgress {
     
     public void setProgress(String questId, int progress) {
         questProgress.put(questId, progress);
+        recordSet(ProgressChange.Kind.QUEST, questId, "", progress);
     }
     
     public void addProgress(String questId, int amount) {
         questProgress.put(questId, getProgress(questId) + amount);
+        recordAdd(ProgressChange.Kind.QUEST, questId, "", amount);
     }
     
     public boolean hasQuest(String questId) {
         return questProgress.containsKey(questId);
     }
     
+    // Objective progress by slot, used by the listeners on every event
+    
+    /**
+     * Get the counters of a quest in its current slot layout. Counters are moved
+     * into a new array the first time a quest is touched or after its targets changed.
+     */
+    private int[] bind(Quest quest) {
+        ObjectiveLayout layout = quest.getObjectiveLayout();
+        QuestObjectives current = objectives.get(quest.getId());
+        if (current != null && current.layout == layout) {
+            return current.counts;
+        }
+        if (current != null) {
+            unbind(quest.getId(), current);
+        }
+        
+        int[] counts = new int[layout.size()];
+        for (int slot = 0; slot < counts.length; slot++) {
+            Map<String, Map<String, Integer>> unbound = unbound(layout.getKind(slot));
+            Map<String, Integer> questCounts = unbound.get(quest.getId());
+            if (questCounts == null) {
+                continue;
+            }
+            Integer count = questCounts.remove(layout.getTarget(slot));
+            if (count != null) {
+                counts[slot] = count;
+            }
+            if (questCounts.isEmpty()) {
+                unbound.remove(quest.getId());
+            }
+        }
+        objectives.put(quest.getId(), new QuestObjectives(layout, counts));
+        return counts;
+    }
+    
+    private void unbind(String questId, QuestObjectives questObjectives) {
+        ObjectiveLayout layout = questObjectives.layout;
+        for (int slot = 0; slot < layout.size(); slot++) {
+            if (questObjectives.counts[slot] != 0) {
+                unbound(layout.getKind(slot)).computeIfAbsent(questId, k -> new HashMap<>())
+                    .put(layout.getTarget(slot), questObjectives.counts[slot]);
+            }
+        }
+        objectives.remove(questId);
+    }
+    
+    private Map<String, Map<String, Integer>> unbound(ProgressChange.Kind kind) {
+        return kind == ProgressChange.Kind.MOB ? unboundMobs : unboundBlocks;
+    }
+    
+    public int getObjectiveProgress(Quest quest, int slot) {
+        return bind(quest)[slot];
+    }
+    
+    public void addObjectiveProgress(Quest quest, int slot, int amount) {
+        bind(quest)[slot] += amount;
+        ObjectiveLayout layout = quest.getObjectiveLayout();
+        recordAdd(layout.getKind(slot), quest.getId(), layout.getTarget(slot), amount);
+    }
+    
+    /**
+     * Check if every block/mob target of a quest has been reached
+     */
+    public boolean areObjectivesComplete(Quest quest) {
+        return quest.getObjectiveLayout().isComplete(bind(quest));
+    }
+    
+    // Objective progress by name, for commands, the GUI and storage
+    
+    private int getObjective(ProgressChange.Kind kind, String questId, String target) {
+        QuestObjectives questObjectives = objectives.get(questId);
+        if (questObjectives != null) {
+            int slot = questObjectives.layout.slotOf(kind, target);
+            if (slot >= 0) {
+                return questObjectives.counts[slot];
+            }
+        }
+        Map<String, Integer> questCounts = unbound(kind).get(questId);
+        return questCounts != null ? questCounts.getOrDefault(target, 0) : 0;
+    }
+    
+    private void updateObjective(ProgressChange.Kind kind, String questId, String target, int amount, boolean add) {
+        QuestObjectives questObjectives = objectives.get(questId);
+        if (questObjectives != null) {
+            int slot = questObjectives.layout.slotOf(kind, target);
+            if (slot >= 0) {
+                questObjectives.counts[slot] = add ? questObjectives.counts[slot] + amount : amount;
+                return;
+            }
+        }
+        Map<String, Integer> questCounts = unbound(kind).computeIfAbsent(questId, k -> new HashMap<>());
+        if (add) {
+            questCounts.merge(target, amount, Integer::sum);
+        } else {
+            questCounts.put(target, amount);
+        }
+    }
+    
+    /**
+     * Put a stored counter into freshly loaded progress without recording a change
+     */
+    public void loadObjective(ProgressChange.Kind kind, String questId, String target, int amount) {
+        updateObjective(kind, questId, target, amount, false);
+    }
+    
+    private Map<String, Map<String, Integer>> getObjectives(ProgressChange.Kind kind) {
+        Map<String, Map<String, Integer>> result = copyNested(unbound(kind));
+        for (Map.Entry<String, QuestObjectives> entry : objectives.entrySet()) {
+            ObjectiveLayout layout = entry.getValue().layout;
+            int[] counts = entry.getValue().counts;
+            for (int slot = 0; slot < counts.length; slot++) {
+                if (layout.getKind(slot) == kind && counts[slot] != 0) {
+                    result.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(layout.getTarget(slot), counts[slot]);
+                }
+            }
+        }
+        return result;
+    }
+    
+    private void setObjectives(ProgressChange.Kind kind, Map<String, Map<String, Integer>> progress) {
+        for (QuestObjectives questObjectives : objectives.values()) {
+            for (int slot = 0; slot < questObjectives.layout.size(); slot++) {
+                if (questObjectives.layout.getKind(slot) == kind) {
+                    questObjectives.counts[slot] = 0;
+                }
+            }
+        }
+        unbound(kind).clear();
+        for (Map.Entry<String, Map<String, Integer>> quest : progress.entrySet()) {
+            for (Map.Entry<String, Integer> entry : quest.getValue().entrySet()) {
+                updateObjective(kind, quest.getKey(), entry.getKey(), entry.getValue(), false);
+            }
+        }
+    }
+    
     // Block-specific progress methods for mining quests
+    
+    /**
+     * @return Copy of all block progress, Quest ID -> (Block Material -> Count)
+     */
     public Map<String, Map<String, Integer>> getBlockProgress() {
-        return blockProgress;
+        return getObjectives(ProgressChange.Kind.BLOCK);
     }
     
     public void setBlockProgress(Map<String, Map<String, Integer>> blockProgress) {
-        this.blockProgress = blockProgress;
+        setObjectives(ProgressChange.Kind.BLOCK, blockProgress);
     }
     
     public Map<String, Integer> getQuestBlockProgress(String questId) {
-        return blockProgress.computeIfAbsent(questId, k -> new HashMap<>());
+        return getBlockProgress().getOrDefault(questId, new HashMap<>());
     }
     
     public int getBlockProgress(String questId, String blockType) {
-        return getQuestBlockProgress(questId).getOrDefault(blockType, 0);
+        return getObjective(ProgressChange.Kind.BLOCK, questId, blockType);
     }
     
     public void addBlockProgress(String questId, String blockType, int amount) {
-        Map<String, Integer> questBlocks = getQuestBlockProgress(questId);
-        questBlocks.put(blockType, questBlocks.getOrDefault(blockType, 0) + amount);
+        updateObjective(ProgressChange.Kind.BLOCK, questId, blockType, amount, true);
+        recordAdd(ProgressChange.Kind.BLOCK, questId, blockType, amount);
     }
     
     public void setBlockProgress(String questId, String blockType, int amount) {
-        getQuestBlockProgress(questId).put(blockType, amount);
+        updateObjective(ProgressChange.Kind.BLOCK, questId, blockType, amount, false);
+        recordSet(ProgressChange.Kind.BLOCK, questId, blockType, amount);
     }
     
     // Mob-specific progress methods for kill quests
+    
+    /**
+     * @return Copy of all mob progress, Quest ID -> (Mob Type -> Count)
+     */
     public Map<String, Map<String, Integer>> getMobProgress() {
-        return mobProgress;
+        return getObjectives(ProgressChange.Kind.MOB);
     }
     
     public void setMobProgress(Map<String, Map<String, Integer>> mobProgress) {
-        this.mobProgress = mobProgress;
+        setObjectives(ProgressChange.Kind.MOB, mobProgress);
     }
     
     public Map<String, Integer> getQuestMobProgress(String questId) {
-        return mobProgress.computeIfAbsent(questId, k -> new HashMap<>());
+        return getMobProgress().getOrDefault(questId, new HashMap<>());
     }
     
     public int getMobProgress(String questId, String mobType) {
-        return getQuestMobProgress(questId).getOrDefault(mobType, 0);
+        return getObjective(ProgressChange.Kind.MOB, questId, mobType);
     }
     
     public void addMobProgress(String questId, String mobType, int amount) {
-        Map<String, Integer> questMobs = getQuestMobProgress(questId);
-        questMobs.put(mobType, questMobs.getOrDefault(mobType, 0) + amount);
+        updateObjective(ProgressChange.Kind.MOB, questId, mobType, amount, true);
+        recordAdd(ProgressChange.Kind.MOB, questId, mobType, amount);
     }
     
     public void setMobProgress(String questId, String mobType, int amount) {
-        getQuestMobProgress(questId).put(mobType, amount);
+        updateObjective(ProgressChange.Kind.MOB, questId, mobType, amount, false);
+        recordSet(ProgressChange.Kind.MOB, questId, mobType, amount);
     }
 }
-
-
-
-
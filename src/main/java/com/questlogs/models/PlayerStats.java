@@ -1,6 +1,8 @@
 package com.questlogs.models;
 
-import java.util.HashMap;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
 import java.util.Map;
 import java.util.UUID;
 
@@ -9,25 +11,29 @@ import java.util.UUID;
  */
 public class PlayerStats {
     
+    // Cached once, values() copies the array on every call
+    static final Material[] MATERIALS = Material.values();
+    static final EntityType[] ENTITY_TYPES = EntityType.values();
+    
     private final UUID playerId;
     
     // Total blocks explored
     private int totalBlocksExplored;
     
-    // Blocks mined by type (e.g., "STONE" -> 1543)
-    private Map<String, Integer> blocksMined;
+    // Blocks mined by Material ordinal (e.g., STONE -> 1543)
+    private OrdinalCounter blocksMined;
     
-    // Blocks broken by type
-    private Map<String, Integer> blocksBroken;
+    // Blocks broken by Material ordinal
+    private OrdinalCounter blocksBroken;
     
-    // Blocks placed by type
-    private Map<String, Integer> blocksPlaced;
+    // Blocks placed by Material ordinal
+    private OrdinalCounter blocksPlaced;
     
-    // Items crafted by type
-    private Map<String, Integer> itemsCrafted;
+    // Items crafted by Material ordinal
+    private OrdinalCounter itemsCrafted;
     
-    // Mobs killed by type (e.g., "ZOMBIE" -> 87)
-    private Map<String, Integer> mobsKilled;
+    // Mobs killed by EntityType ordinal (e.g., ZOMBIE -> 87)
+    private OrdinalCounter mobsKilled;
     
     // Quests completed count
     private int questsCompleted;
@@ -47,20 +53,97 @@ public class PlayerStats {
     // Last recorded activity timestamp
     private long lastSeen;
     
+    // Changes since the last flush, swapped out by drainChanges() on the save thread
+    private StatsDelta pending;
+    
+    // True while this is a placeholder waiting for the stored stats to load
+    private boolean loading;
+    
+    // When the stats cache last handed this out, used to pick eviction candidates
+    private long lastAccess;
+    
     public PlayerStats(UUID playerId) {
         this.playerId = playerId;
         this.totalBlocksExplored = 0;
-        this.blocksMined = new HashMap<>();
-        this.blocksBroken = new HashMap<>();
-        this.blocksPlaced = new HashMap<>();
-        this.itemsCrafted = new HashMap<>();
-        this.mobsKilled = new HashMap<>();
+        this.blocksMined = new OrdinalCounter();
+        this.blocksBroken = new OrdinalCounter();
+        this.blocksPlaced = new OrdinalCounter();
+        this.itemsCrafted = new OrdinalCounter();
+        this.mobsKilled = new OrdinalCounter();
         this.questsCompleted = 0;
         this.challengesWon = 0;
         this.challengesParticipated = 0;
         this.playtime = 0;
         this.firstSeen = System.currentTimeMillis();
         this.lastSeen = System.currentTimeMillis();
+        this.pending = new StatsDelta();
+    }
+    
+    /**
+     * Create an empty placeholder that records changes while the stored stats load
+     */
+    public static PlayerStats placeholder(UUID playerId) {
+        PlayerStats stats = new PlayerStats(playerId);
+        stats.loading = true;
+        return stats;
+    }
+    
+    public boolean isLoading() {
+        return loading;
+    }
+    
+    public void touch() {
+        this.lastAccess = System.currentTimeMillis();
+    }
+    
+    public long getLastAccess() {
+        return lastAccess;
+    }
+    
+    /**
+     * Add the stored stats onto a placeholder. Everything recorded while loading
+     * is already in the pending delta, so it is kept on top of the stored values.
+     */
+    public synchronized void applyLoaded(PlayerStats loaded) {
+        if (!loading) {
+            return;
+        }
+        
+        totalBlocksExplored += loaded.totalBlocksExplored;
+        questsCompleted += loaded.questsCompleted;
+        challengesWon += loaded.challengesWon;
+        challengesParticipated += loaded.challengesParticipated;
+        playtime += loaded.playtime;
+        firstSeen = loaded.firstSeen;
+        lastSeen = Math.max(lastSeen, loaded.lastSeen);
+        
+        blocksMined.addAll(loaded.blocksMined);
+        blocksBroken.addAll(loaded.blocksBroken);
+        blocksPlaced.addAll(loaded.blocksPlaced);
+        itemsCrafted.addAll(loaded.itemsCrafted);
+        mobsKilled.addAll(loaded.mobsKilled);
+        
+        loading = false;
+    }
+    
+    /**
+     * Take the changes recorded since the last flush and start a new delta
+     */
+    public synchronized StatsDelta drainChanges() {
+        if (pending.isEmpty()) {
+            return pending; // Nothing to hand over, keep the empty delta
+        }
+        StatsDelta changes = pending;
+        changes.setFirstSeen(firstSeen);
+        pending = new StatsDelta();
+        return changes;
+    }
+    
+    /**
+     * Put back changes that could not be written so the next flush retries them
+     */
+    public synchronized void restoreChanges(StatsDelta changes) {
+        pending.merge(changes);
     }
     
     // Getters
@@ -72,24 +155,25 @@ public class PlayerStats {
         return totalBlocksExplored;
     }
     
-    public Map<String, Integer> getBlocksMined() {
-        return new HashMap<>(blocksMined);
+    // Name maps for display, built on request
+    public synchronized Map<String, Integer> getBlocksMined() {
+        return blocksMined.toNameMap(MATERIALS);
     }
     
-    public Map<String, Integer> getBlocksBroken() {
-        return new HashMap<>(blocksBroken);
+    public synchronized Map<String, Integer> getBlocksBroken() {
+        return blocksBroken.toNameMap(MATERIALS);
     }
     
-    public Map<String, Integer> getBlocksPlaced() {
-        return new HashMap<>(blocksPlaced);
+    public synchronized Map<String, Integer> getBlocksPlaced() {
+        return blocksPlaced.toNameMap(MATERIALS);
     }
     
-    public Map<String, Integer> getItemsCrafted() {
-        return new HashMap<>(itemsCrafted);
+    public synchronized Map<String, Integer> getItemsCrafted() {
+        return itemsCrafted.toNameMap(MATERIALS);
     }
     
-    public Map<String, Integer> getMobsKilled() {
-        return new HashMap<>(mobsKilled);
+    public synchronized Map<String, Integer> getMobsKilled() {
+        return mobsKilled.toNameMap(ENTITY_TYPES);
     }
     
     public int getQuestsCompleted() {
@@ -117,24 +201,24 @@ public class PlayerStats {
     }
     
     // Get specific stat value
-    public int getBlockMinedCount(String blockType) {
-        return blocksMined.getOrDefault(blockType, 0);
+    public synchronized int getBlockMinedCount(Material blockType) {
+        return blocksMined.get(blockType.ordinal());
     }
     
-    public int getBlockBrokenCount(String blockType) {
-        return blocksBroken.getOrDefault(blockType, 0);
+    public synchronized int getBlockBrokenCount(Material blockType) {
+        return blocksBroken.get(blockType.ordinal());
     }
     
-    public int getBlockPlacedCount(String blockType) {
-        return blocksPlaced.getOrDefault(blockType, 0);
+    public synchronized int getBlockPlacedCount(Material blockType) {
+        return blocksPlaced.get(blockType.ordinal());
     }
     
-    public int getItemCraftedCount(String itemType) {
-        return itemsCrafted.getOrDefault(itemType, 0);
+    public synchronized int getItemCraftedCount(Material itemType) {
+        return itemsCrafted.get(itemType.ordinal());
     }
     
-    public int getMobKilledCount(String mobType) {
-        return mobsKilled.getOrDefault(mobType, 0);
+    public synchronized int getMobKilledCount(EntityType mobType) {
+        return mobsKilled.get(mobType.ordinal());
     }
     
     // Setters
@@ -142,24 +226,45 @@ public class PlayerStats {
         this.totalBlocksExplored = totalBlocksExplored;
     }
     
+    // Loaded from storage by name. Names this server version doesn't know are
+    // skipped in memory; their rows stay in the database untouched.
     public void setBlocksMined(Map<String, Integer> blocksMined) {
-        this.blocksMined = new HashMap<>(blocksMined);
+        this.blocksMined = materialCounter(blocksMined);
     }
     
     public void setBlocksBroken(Map<String, Integer> blocksBroken) {
-        this.blocksBroken = new HashMap<>(blocksBroken);
+        this.blocksBroken = materialCounter(blocksBroken);
     }
     
     public void setBlocksPlaced(Map<String, Integer> blocksPlaced) {
-        this.blocksPlaced = new HashMap<>(blocksPlaced);
+        this.blocksPlaced = materialCounter(blocksPlaced);
     }
     
     public void setItemsCrafted(Map<String, Integer> itemsCrafted) {
-        this.itemsCrafted = new HashMap<>(itemsCrafted);
+        this.itemsCrafted = materialCounter(itemsCrafted);
     }
     
     public void setMobsKilled(Map<String, Integer> mobsKilled) {
-        this.mobsKilled = new HashMap<>(mobsKilled);
+        OrdinalCounter counter = new OrdinalCounter();
+        for (Map.Entry<String, Integer> entry : mobsKilled.entrySet()) {
+            try {
+                counter.add(EntityType.valueOf(entry.getKey()).ordinal(), entry.getValue());
+            } catch (IllegalArgumentException e) {
+                // Mob removed from this server version
+            }
+        }
+        this.mobsKilled = counter;
+    }
+    
+    private static OrdinalCounter materialCounter(Map<String, Integer> counts) {
+        OrdinalCounter counter = new OrdinalCounter();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            Material material = Material.getMaterial(entry.getKey());
+            if (material != null) {
+                counter.add(material.ordinal(), entry.getValue());
+            }
+        }
+        return counter;
     }
     
     public void setQuestsCompleted(int questsCompleted) {
@@ -187,79 +292,90 @@ public class PlayerStats {
     }
     
     // Increment methods
-    public void addBlocksExplored(int amount) {
+    public synchronized void addBlocksExplored(int amount) {
         this.totalBlocksExplored += amount;
+        pending.addBlocksExplored(amount);
         updateLastSeen();
     }
     
-    public void addBlockMined(String blockType, int amount) {
-        blocksMined.put(blockType, blocksMined.getOrDefault(blockType, 0) + amount);
+    public synchronized void addBlockMined(Material blockType, int amount) {
+        blocksMined.add(blockType.ordinal(), amount);
+        pending.addBlockMined(blockType.ordinal(), amount);
         updateLastSeen();
     }
     
-    public void addBlockBroken(String blockType, int amount) {
-        blocksBroken.put(blockType, blocksBroken.getOrDefault(blockType, 0) + amount);
+    public synchronized void addBlockBroken(Material blockType, int amount) {
+        blocksBroken.add(blockType.ordinal(), amount);
+        pending.addBlockBroken(blockType.ordinal(), amount);
         updateLastSeen();
     }
     
-    public void addBlockPlaced(String blockType, int amount) {
-        blocksPlaced.put(blockType, blocksPlaced.getOrDefault(blockType, 0) + amount);
+    public synchronized void addBlockPlaced(Material blockType, int amount) {
+        blocksPlaced.add(blockType.ordinal(), amount);
+        pending.addBlockPlaced(blockType.ordinal(), amount);
         updateLastSeen();
     }
     
-    public void addItemCrafted(String itemType, int amount) {
-        itemsCrafted.put(itemType, itemsCrafted.getOrDefault(itemType, 0) + amount);
+    public synchronized void addItemCrafted(Material itemType, int amount) {
+        itemsCrafted.add(itemType.ordinal(), amount);
+        pending.addItemCrafted(itemType.ordinal(), amount);
         updateLastSeen();
     }
     
-    public void addMobKilled(String mobType, int amount) {
-        mobsKilled.put(mobType, mobsKilled.getOrDefault(mobType, 0) + amount);
+    public synchronized void addMobKilled(EntityType mobType, int amount) {
+        mobsKilled.add(mobType.ordinal(), amount);
+        pending.addMobKilled(mobType.ordinal(), amount);
         updateLastSeen();
     }
     
-    public void incrementQuestsCompleted() {
+    public synchronized void incrementQuestsCompleted() {
         this.questsCompleted++;
+        pending.addQuestsCompleted(1);
         updateLastSeen();
     }
     
-    public void incrementChallengesWon() {
+    public synchronized void incrementChallengesWon() {
         this.challengesWon++;
+        pending.addChallengesWon(1);
         updateLastSeen();
     }
     
-    public void incrementChallengesParticipated() {
+    public synchronized void incrementChallengesParticipated() {
         this.challengesParticipated++;
+        pending.addChallengesParticipated(1);
         updateLastSeen();
     }
     
-    public void addPlaytime(long milliseconds) {
+    public synchronized void addPlaytime(long milliseconds) {
         this.playtime += milliseconds;
+        pending.addPlaytime(milliseconds);
         updateLastSeen();
     }
     
     private void updateLastSeen() {
         this.lastSeen = System.currentTimeMillis();
+        pending.setLastSeen(lastSeen);
     }
     
     // Get total counts across all types
-    public int getTotalBlocksMined() {
-        return blocksMined.values().stream().mapToInt(Integer::intValue).sum();
+    public synchronized int getTotalBlocksMined() {
+        return (int) blocksMined.total();
     }
     
-    public int getTotalBlocksBroken() {
-        return blocksBroken.values().stream().mapToInt(Integer::intValue).sum();
+    public synchronized int getTotalBlocksBroken() {
+        return (int) blocksBroken.total();
     }
     
-    public int getTotalBlocksPlaced() {
-        return blocksPlaced.values().stream().mapToInt(Integer::intValue).sum();
+    public synchronized int getTotalBlocksPlaced() {
+        return (int) blocksPlaced.total();
     }
     
-    public int getTotalItemsCrafted() {
-        return itemsCrafted.values().stream().mapToInt(Integer::intValue).sum();
+    public synchronized int getTotalItemsCrafted() {
+        return (int) itemsCrafted.total();
     }
     
-    public int getTotalMobsKilled() {
-        return mobsKilled.values().stream().mapToInt(Integer::intValue).sum();
+    public synchronized int getTotalMobsKilled() {
+        return (int) mobsKilled.total();
     }
 }
 
@@ -0,0 +1,76 @@
+package com.questlogs.models;
+
+/**
+ * A single change to a player's quest progress since it was last saved.
+ * Lets storages write just the changed counters instead of the whole player.
+ */
+public class ProgressChange {
+    
+    public enum Kind {
+        QUEST,  // Plain quest counter (exploration, etc.)
+        BLOCK,  // Per-block/item objective
+        MOB     // Per-mob objective
+    }
+    
+    private final Kind kind;
+    private final String questId;
+    private final String target; // Block/mob type, empty for QUEST
+    private int amount;
+    private boolean absolute; // true = amount replaces the stored value, false = amount is added to it
+    
+    public ProgressChange(Kind kind, String questId, String target) {
+        this.kind = kind;
+        this.questId = questId;
+        this.target = target;
+        this.amount = 0;
+        this.absolute = false;
+    }
+    
+    public static String key(Kind kind, String questId, String target) {
+        return kind.ordinal() + ":" + questId + ":" + target;
+    }
+    
+    public String key() {
+        return key(kind, questId, target);
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public String getQuestId() {
+        return questId;
+    }
+    
+    public String getTarget() {
+        return target;
+    }
+    
+    public int getAmount() {
+        return amount;
+    }
+    
+    public boolean isAbsolute() {
+        return absolute;
+    }
+    
+    public void add(int delta) {
+        this.amount += delta;
+    }
+    
+    public void set(int value) {
+        this.amount = value;
+        this.absolute = true;
+    }
+    
+    /**
+     * Fold an older, not yet saved change for the same counter in front of this one
+     */
+    public void mergeOlder(ProgressChange older) {
+        if (absolute) {
+            return; // This change overwrites whatever came before
+        }
+        this.amount += older.amount;
+        this.absolute = older.absolute;
+    }
+}
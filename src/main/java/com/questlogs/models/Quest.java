@@ -35,6 +35,9 @@ public class Quest {
     // Enchantments for rewards: item -> (enchantment -> level)
     private Map<String, Map<String, Integer>> itemEnchantments;
     
+    // Block and mob targets compiled to slots, rebuilt lazily after they change
+    private ObjectiveLayout objectiveLayout;
+    
     public Quest(String id, String name, String description, QuestType type, int targetAmount, String reward) {
         this.id = id;
         this.name = name;
@@ -150,10 +153,12 @@ public class Quest {
     
     public void setBlockTargets(Map<String, Integer> blockTargets) {
         this.blockTargets = blockTargets != null ? blockTargets : new HashMap<>();
+        this.objectiveLayout = null;
     }
     
     public void addBlockTarget(String material, int amount) {
         this.blockTargets.put(material, amount);
+        this.objectiveLayout = null;
     }
     
     public int getBlockTarget(String material) {
@@ -182,10 +187,12 @@ public class Quest {
     
     public void setMobTargets(Map<String, Integer> mobTargets) {
         this.mobTargets = mobTargets != null ? mobTargets : new HashMap<>();
+        this.objectiveLayout = null;
     }
     
     public void addMobTarget(String entityType, int amount) {
         this.mobTargets.put(entityType, amount);
+        this.objectiveLayout = null;
     }
     
     public int getMobTarget(String entityType) {
@@ -196,6 +203,18 @@ public class Quest {
         return mobTargets != null && !mobTargets.isEmpty();
     }
     
+    /**
+     * Get the block and mob targets compiled to slots for array-based progress
+     */
+    public ObjectiveLayout getObjectiveLayout() {
+        ObjectiveLayout layout = objectiveLayout;
+        if (layout == null) {
+            layout = ObjectiveLayout.compile(blockTargets, mobTargets);
+            objectiveLayout = layout;
+        }
+        return layout;
+    }
+    
     public String getPrerequisite() {
         return prerequisite;
     }
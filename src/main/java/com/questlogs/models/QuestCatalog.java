@@ -0,0 +1,153 @@
+package com.questlogs.models;
+
+import com.questlogs.rewards.RewardTemplate;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Immutable snapshot of every loaded quest together with everything derived
+ * from them: the event lookup, the prerequisite graph, compiled objectives and resolved rewards.
+ * Built off the main thread on reload and swapped in as a whole, so readers
+ * always see either the old or the new quest set, never a mix. Quests are kept
+ * per source file (quests.yml, quests.d/*.yml) so one file can be replaced
+ * without touching the others. The quests must not be modified once the
+ * catalog has been built.
+ */
+public final class QuestCatalog {
+    
+    public static final QuestCatalog EMPTY = new QuestCatalog(Collections.emptyMap(), Collections.emptyMap(),
+        Collections.emptyMap(), Collections.emptyList(), QuestIndex.EMPTY, QuestGraph.EMPTY, Collections.emptyMap());
+    
+    private final Map<String, List<Quest>> sources;
+    private final Map<String, String> sourceOf;
+    private final Map<String, Quest> quests;
+    private final List<Quest> activeQuests;
+    private final QuestIndex index;
+    private final QuestGraph graph;
+    private final Map<String, List<RewardTemplate>> rewards;
+    
+    private QuestCatalog(Map<String, List<Quest>> sources, Map<String, String> sourceOf, Map<String, Quest> quests,
+                         List<Quest> activeQuests, QuestIndex index, QuestGraph graph, 
+                         Map<String, List<RewardTemplate>> rewards) {
+        this.sources = sources;
+        this.sourceOf = sourceOf;
+        this.quests = quests;
+        this.activeQuests = activeQuests;
+        this.index = index;
+        this.graph = graph;
+        this.rewards = rewards;
+    }
+    
+    /**
+     * Validate and compile the quests of every source. Problems are logged, a quest with
+     * an unknown target, reward or prerequisite is still loaded. If a quest ID is defined
+     * in more than one source, the first source wins.
+     * @param sources Source file name -> its quests, in load order
+     * @param previous Catalog being replaced, quests carried over from it keep their compiled rewards
+     */
+    public static QuestCatalog build(Map<String, List<Quest>> sources, QuestCatalog previous, Logger logger) {
+        Map<String, List<Quest>> bySource = new LinkedHashMap<>();
+        Map<String, String> sourceOf = new HashMap<>();
+        Map<String, Quest> byId = new LinkedHashMap<>();
+        List<Quest> active = new ArrayList<>();
+        Map<String, List<RewardTemplate>> rewards = new HashMap<>();
+        
+        for (Map.Entry<String, List<Quest>> source : sources.entrySet()) {
+            bySource.put(source.getKey(), List.copyOf(source.getValue()));
+            for (Quest quest : source.getValue()) {
+                String owner = sourceOf.putIfAbsent(quest.getId(), source.getKey());
+                if (owner != null) {
+                    logger.warning("Quest " + quest.getId() + " in " + source.getKey() + 
+                        " is already defined in " + owner + ", ignoring it");
+                    continue;
+                }
+                byId.put(quest.getId(), quest);
+                if (quest.isActive()) {
+                    active.add(quest);
+                }
+                
+                // Compile now so the main thread never has to
+                quest.getObjectiveLayout();
+                if (quest.hasStructuredRewards()) {
+                    List<RewardTemplate> compiled = previous.getQuest(quest.getId()) == quest ? previous.getRewards(quest.getId()) : null;
+                    rewards.put(quest.getId(), compiled != null ? compiled : 
+                        RewardTemplate.compile(quest.getId(), quest.getStructuredRewards(), logger));
+                }
+            }
+        }
+        
+        // Prerequisites are resolved across all sources, a pack can build on quests from another file
+        for (Quest quest : byId.values()) {
+            if (!quest.hasPrerequisite()) {
+                continue;
+            }
+            String source = sourceOf.get(quest.getId());
+            if (quest.getPrerequisite().equals(quest.getId())) {
+                logger.warning("Quest " + quest.getId() + " in " + source + " is its own prerequisite");
+            } else if (!byId.containsKey(quest.getPrerequisite())) {
+                logger.warning("Quest " + quest.getId() + " in " + source + " requires unknown quest: " + quest.getPrerequisite());
+            }
+        }
+        
+        return new QuestCatalog(Collections.unmodifiableMap(bySource), Collections.unmodifiableMap(sourceOf),
+            Collections.unmodifiableMap(byId), List.copyOf(active), QuestIndex.build(byId.values(), logger), 
+            QuestGraph.build(byId.values(), logger), Collections.unmodifiableMap(rewards));
+    }
+    
+    public Quest getQuest(String id) {
+        return quests.get(id);
+    }
+    
+    public Collection<Quest> getQuests() {
+        return quests.values();
+    }
+    
+    public List<Quest> getActiveQuests() {
+        return activeQuests;
+    }
+    
+    /**
+     * Source file name -> the quests it defines, including ones ignored as duplicates
+     */
+    public Map<String, List<Quest>> getSources() {
+        return sources;
+    }
+    
+    public List<Quest> getSourceQuests(String source) {
+        return sources.getOrDefault(source, Collections.emptyList());
+    }
+    
+    /**
+     * @return The file a loaded quest came from, or null if it isn't loaded
+     */
+    public String getSource(String questId) {
+        return sourceOf.get(questId);
+    }
+    
+    public int size() {
+        return quests.size();
+    }
+    
+    /**
+     * Lookup from events to the active quests they can progress
+     */
+    public QuestIndex getIndex() {
+        return index;
+    }
+    
+    /**
+     * The prerequisite graph over every loaded quest
+     */
+    public QuestGraph getGraph() {
+        return graph;
+    }
+    
+    /**
+     * Structured rewards of a quest with their materials resolved
+     * @return The rewards, or null if the quest has no structured rewards
+     */
+    public List<RewardTemplate> getRewards(String questId) {
+        return rewards.get(questId);
+    }
+}
@@ -0,0 +1,131 @@
+package com.questlogs.models;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * The prerequisite relation of a quest catalog, compiled to dense indices so
+ * per-player state can be kept in bit sets (see {@link QuestUnlocks}).
+ * Every quest points at most at one prerequisite, so the graph is a forest
+ * unless the quest files contain a cycle, which is detected and logged when built.
+ */
+public final class QuestGraph {
+    
+    public static final int NO_PREREQUISITE = -1;
+    public static final int UNKNOWN_PREREQUISITE = -2; // Can never be unlocked
+    
+    public static final QuestGraph EMPTY = new QuestGraph(Collections.emptyMap(), new Quest[0], new int[0], new int[0][]);
+    
+    private final Map<String, Integer> indices;
+    private final Quest[] quests;
+    private final int[] prerequisites;
+    private final int[][] dependents;
+    
+    private QuestGraph(Map<String, Integer> indices, Quest[] quests, int[] prerequisites, int[][] dependents) {
+        this.indices = indices;
+        this.quests = quests;
+        this.prerequisites = prerequisites;
+        this.dependents = dependents;
+    }
+    
+    public static QuestGraph build(Collection<Quest> quests, Logger logger) {
+        Quest[] byIndex = quests.toArray(new Quest[0]);
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < byIndex.length; i++) {
+            indices.put(byIndex[i].getId(), i);
+        }
+        
+        int[] prerequisites = new int[byIndex.length];
+        int[] dependentCounts = new int[byIndex.length];
+        for (int i = 0; i < byIndex.length; i++) {
+            if (!byIndex[i].hasPrerequisite()) {
+                prerequisites[i] = NO_PREREQUISITE;
+                continue;
+            }
+            Integer prerequisite = indices.get(byIndex[i].getPrerequisite());
+            prerequisites[i] = prerequisite != null ? prerequisite : UNKNOWN_PREREQUISITE;
+            if (prerequisite != null) {
+                dependentCounts[prerequisite]++;
+            }
+        }
+        
+        int[][] dependents = new int[byIndex.length][];
+        for (int i = 0; i < byIndex.length; i++) {
+            dependents[i] = new int[dependentCounts[i]];
+            dependentCounts[i] = 0;
+        }
+        for (int i = 0; i < byIndex.length; i++) {
+            int prerequisite = prerequisites[i];
+            if (prerequisite >= 0) {
+                dependents[prerequisite][dependentCounts[prerequisite]++] = i;
+            }
+        }
+        
+        QuestGraph graph = new QuestGraph(Collections.unmodifiableMap(indices), byIndex, prerequisites, dependents);
+        graph.checkCycles(logger);
+        return graph;
+    }
+    
+    /**
+     * Walk the graph from the quests without a (known) prerequisite. Quests that
+     * are never reached wait on each other in a cycle and can never be unlocked.
+     */
+    private void checkCycles(Logger logger) {
+        boolean[] reached = new boolean[quests.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < quests.length; i++) {
+            if (prerequisites[i] < 0) {
+                reached[i] = true;
+                queue.add(i);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (int dependent : dependents[queue.poll()]) {
+                if (!reached[dependent]) {
+                    reached[dependent] = true;
+                    queue.add(dependent);
+                }
+            }
+        }
+        
+        List<String> cycle = new ArrayList<>();
+        for (int i = 0; i < quests.length; i++) {
+            if (!reached[i]) {
+                cycle.add(quests[i].getId());
+            }
+        }
+        if (!cycle.isEmpty()) {
+            logger.warning("Quests with circular prerequisites can never be unlocked: " + String.join(", ", cycle));
+        }
+    }
+    
+    /**
+     * @return The index of a quest, or -1 if it isn't in the graph
+     */
+    public int indexOf(String questId) {
+        Integer index = indices.get(questId);
+        return index != null ? index : -1;
+    }
+    
+    public Quest getQuest(int index) {
+        return quests[index];
+    }
+    
+    public int size() {
+        return quests.length;
+    }
+    
+    /**
+     * @return The index of a quest's prerequisite, {@link #NO_PREREQUISITE} or {@link #UNKNOWN_PREREQUISITE}
+     */
+    public int getPrerequisite(int index) {
+        return prerequisites[index];
+    }
+    
+    /**
+     * Indices of the quests that have this quest as their prerequisite
+     */
+    public int[] getDependents(int index) {
+        return dependents[index];
+    }
+}
@@ -0,0 +1,127 @@
+package com.questlogs.models;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Immutable lookup from an event to the active quests it can progress.
+ * Rebuilt by the QuestManager whenever quests change, so listeners only
+ * touch the quests that target the block, item or mob involved.
+ */
+public final class QuestIndex {
+    
+    public static final QuestIndex EMPTY = new QuestIndex(
+        new EnumMap<>(QuestType.class), new EnumMap<>(EntityType.class), new EnumMap<>(QuestType.class), new HashMap<>());
+    
+    // Quest type -> target material -> quests (mine, break, place, craft)
+    private final Map<QuestType, Map<Material, List<Quest>>> byMaterial;
+    
+    // Target mob -> kill quests
+    private final Map<EntityType, List<Quest>> byEntity;
+    
+    // Quest type -> every active quest of that type (exploration has no targets)
+    private final Map<QuestType, List<Quest>> byType;
+    
+    // Prerequisite quest ID -> active quests it unlocks
+    private final Map<String, List<Quest>> byPrerequisite;
+    
+    private QuestIndex(Map<QuestType, Map<Material, List<Quest>>> byMaterial,
+                       Map<EntityType, List<Quest>> byEntity,
+                       Map<QuestType, List<Quest>> byType,
+                       Map<String, List<Quest>> byPrerequisite) {
+        this.byMaterial = byMaterial;
+        this.byEntity = byEntity;
+        this.byType = byType;
+        this.byPrerequisite = byPrerequisite;
+    }
+    
+    /**
+     * Build an index over the active quests. Targets that aren't a known
+     * material or mob are logged and left out, since no event can match them.
+     */
+    public static QuestIndex build(Collection<Quest> quests, Logger logger) {
+        Map<QuestType, Map<Material, List<Quest>>> byMaterial = new EnumMap<>(QuestType.class);
+        Map<EntityType, List<Quest>> byEntity = new EnumMap<>(EntityType.class);
+        Map<QuestType, List<Quest>> byType = new EnumMap<>(QuestType.class);
+        Map<String, List<Quest>> byPrerequisite = new HashMap<>();
+        
+        for (Quest quest : quests) {
+            if (!quest.isActive()) {
+                continue;
+            }
+            byType.computeIfAbsent(quest.getType(), k -> new ArrayList<>()).add(quest);
+            if (quest.hasPrerequisite()) {
+                byPrerequisite.computeIfAbsent(quest.getPrerequisite(), k -> new ArrayList<>()).add(quest);
+            }
+            
+            if (quest.hasBlockTargets()) {
+                Map<Material, List<Quest>> materials = byMaterial.computeIfAbsent(quest.getType(), k -> new EnumMap<>(Material.class));
+                for (String target : quest.getBlockTargets().keySet()) {
+                    Material material = Material.getMaterial(target);
+                    if (material == null) {
+                        logger.warning("Quest " + quest.getId() + " targets unknown material: " + target);
+                        continue;
+                    }
+                    materials.computeIfAbsent(material, k -> new ArrayList<>()).add(quest);
+                }
+            }
+            
+            if (quest.getType() == QuestType.KILL_MOBS && quest.hasMobTargets()) {
+                for (String target : quest.getMobTargets().keySet()) {
+                    try {
+                        byEntity.computeIfAbsent(EntityType.valueOf(target), k -> new ArrayList<>()).add(quest);
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Quest " + quest.getId() + " targets unknown mob: " + target);
+                    }
+                }
+            }
+        }
+        
+        // Freeze everything so the index can be shared without copying
+        for (Map.Entry<QuestType, Map<Material, List<Quest>>> entry : byMaterial.entrySet()) {
+            entry.getValue().replaceAll((material, list) -> List.copyOf(list));
+            entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+        }
+        byEntity.replaceAll((entity, list) -> List.copyOf(list));
+        byType.replaceAll((type, list) -> List.copyOf(list));
+        byPrerequisite.replaceAll((questId, list) -> List.copyOf(list));
+        
+        return new QuestIndex(Collections.unmodifiableMap(byMaterial), Collections.unmodifiableMap(byEntity), 
+            Collections.unmodifiableMap(byType), Collections.unmodifiableMap(byPrerequisite));
+    }
+    
+    /**
+     * Active quests of a type that target a block or item
+     */
+    public List<Quest> getQuests(QuestType type, Material material) {
+        Map<Material, List<Quest>> materials = byMaterial.get(type);
+        if (materials == null) {
+            return Collections.emptyList();
+        }
+        return materials.getOrDefault(material, Collections.emptyList());
+    }
+    
+    /**
+     * Active kill quests that target a mob
+     */
+    public List<Quest> getQuests(EntityType entityType) {
+        return byEntity.getOrDefault(entityType, Collections.emptyList());
+    }
+    
+    /**
+     * Every active quest of a type
+     */
+    public List<Quest> getQuests(QuestType type) {
+        return byType.getOrDefault(type, Collections.emptyList());
+    }
+    
+    /**
+     * Active quests that have the given quest as their prerequisite
+     */
+    public List<Quest> getDependents(String questId) {
+        return byPrerequisite.getOrDefault(questId, Collections.emptyList());
+    }
+}
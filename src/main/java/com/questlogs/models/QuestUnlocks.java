@@ -0,0 +1,79 @@
+package com.questlogs.models;
+
+import java.util.BitSet;
+
+/**
+ * One player's completed and unlocked quests over a {@link QuestGraph}.
+ * A quest is unlocked if it is active and its prerequisite is complete (or
+ * prerequisites are disabled), so checking a quest is a single bit test.
+ * When a quest completes only the quests that require it are re-checked.
+ */
+public final class QuestUnlocks {
+    
+    private final QuestGraph graph;
+    private final boolean prerequisites;
+    private final BitSet complete;
+    private final BitSet unlocked;
+    
+    /**
+     * @param complete Bit per graph index, owned by this object afterwards
+     * @param prerequisites Whether quests wait for their prerequisite
+     */
+    public QuestUnlocks(QuestGraph graph, boolean prerequisites, BitSet complete) {
+        this.graph = graph;
+        this.prerequisites = prerequisites;
+        this.complete = complete;
+        this.unlocked = new BitSet(graph.size());
+        for (int i = 0; i < graph.size(); i++) {
+            updateUnlocked(i);
+        }
+    }
+    
+    /**
+     * Check if this was built for the given quests and settings
+     */
+    public boolean isFor(QuestGraph graph, boolean prerequisites) {
+        return this.graph == graph && this.prerequisites == prerequisites;
+    }
+    
+    public QuestGraph getGraph() {
+        return graph;
+    }
+    
+    public boolean isComplete(int index) {
+        return complete.get(index);
+    }
+    
+    public boolean isUnlocked(int index) {
+        return unlocked.get(index);
+    }
+    
+    /**
+     * Unlocked but not complete yet, the player can make progress on it
+     */
+    public boolean isOpen(int index) {
+        return unlocked.get(index) && !complete.get(index);
+    }
+    
+    /**
+     * Mark a quest complete and unlock the quests waiting on it
+     */
+    public void markComplete(int index) {
+        if (complete.get(index)) {
+            return;
+        }
+        complete.set(index);
+        for (int dependent : graph.getDependents(index)) {
+            updateUnlocked(dependent);
+        }
+    }
+    
+    private void updateUnlocked(int index) {
+        boolean value = graph.getQuest(index).isActive();
+        if (value && prerequisites) {
+            int prerequisite = graph.getPrerequisite(index);
+            value = prerequisite == QuestGraph.NO_PREREQUISITE || prerequisite >= 0 && complete.get(prerequisite);
+        }
+        unlocked.set(index, value);
+    }
+}
@@ -0,0 +1,197 @@
+package com.questlogs.models;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Set of visited (x, z) columns in one 512x512 region, stored like a Roaring bitmap.
+ * The region's 2^18 columns are split into four containers of 2^16. A container
+ * holds a sorted short[] while it is sparse and switches to a 8 KB bit set once it
+ * has more than 4096 entries, so a path through a region costs a few hundred bytes
+ * and a fully explored region at most 32 KB. Not thread-safe.
+ */
+public class RegionBitmap {
+    
+    public static final int REGION_SHIFT = 9; // 512 columns per side, like region files
+    
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int CONTAINERS = 4;
+    private static final int ARRAY_LIMIT = 4096; // Past this a bit set is smaller than the array
+    private static final int BITMAP_WORDS = 1024; // 2^16 bits
+    private static final int FORMAT_VERSION = 1;
+    
+    private final short[][] arrays = new short[CONTAINERS][];
+    private final long[][] bitmaps = new long[CONTAINERS][];
+    private final int[] sizes = new int[CONTAINERS];
+    
+    /**
+     * Column index of a block inside its region
+     */
+    public static int column(int blockX, int blockZ) {
+        return (blockZ & REGION_MASK) << REGION_SHIFT | (blockX & REGION_MASK);
+    }
+    
+    /**
+     * @return true if the column wasn't in the set yet
+     */
+    public boolean add(int column) {
+        int container = column >>> 16;
+        int low = column & 0xFFFF;
+        
+        long[] bitmap = bitmaps[container];
+        if (bitmap != null) {
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            bitmap[low >>> 6] |= bit;
+            sizes[container]++;
+            return true;
+        }
+        
+        short[] array = arrays[container];
+        int size = sizes[container];
+        int index = array != null ? binarySearch(array, size, low) : -1;
+        if (index >= 0) {
+            return false;
+        }
+        
+        if (size == ARRAY_LIMIT) {
+            toBitmap(container);
+            return add(column);
+        }
+        
+        int insert = -index - 1;
+        if (array == null) {
+            array = new short[4];
+        } else if (size == array.length) {
+            array = Arrays.copyOf(array, Math.min(size * 2, ARRAY_LIMIT));
+        }
+        System.arraycopy(array, insert, array, insert + 1, size - insert);
+        array[insert] = (short) low;
+        arrays[container] = array;
+        sizes[container] = size + 1;
+        return true;
+    }
+    
+    public boolean contains(int column) {
+        int container = column >>> 16;
+        int low = column & 0xFFFF;
+        
+        long[] bitmap = bitmaps[container];
+        if (bitmap != null) {
+            return (bitmap[low >>> 6] & 1L << low) != 0;
+        }
+        short[] array = arrays[container];
+        return array != null && binarySearch(array, sizes[container], low) >= 0;
+    }
+    
+    /**
+     * @return Number of columns in the set
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        return total;
+    }
+    
+    private void toBitmap(int container) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        short[] array = arrays[container];
+        for (int i = 0; i < sizes[container]; i++) {
+            int low = array[i] & 0xFFFF;
+            bitmap[low >>> 6] |= 1L << low;
+        }
+        bitmaps[container] = bitmap;
+        arrays[container] = null;
+    }
+    
+    // Values are compared unsigned, shorts above 0x7FFF are negative
+    private static int binarySearch(short[] array, int size, int value) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midValue = array[mid] & 0xFFFF;
+            if (midValue < value) {
+                low = mid + 1;
+            } else if (midValue > value) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+    
+    /**
+     * Write in the binary region file format: version, then for every
+     * non-empty container its index, kind, size and values or bit set
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        int used = 0;
+        for (int size : sizes) {
+            if (size > 0) {
+                used++;
+            }
+        }
+        out.writeByte(used);
+        
+        for (int container = 0; container < CONTAINERS; container++) {
+            if (sizes[container] == 0) {
+                continue;
+            }
+            out.writeByte(container);
+            out.writeBoolean(bitmaps[container] != null);
+            out.writeInt(sizes[container]);
+            if (bitmaps[container] != null) {
+                for (long word : bitmaps[container]) {
+                    out.writeLong(word);
+                }
+            } else {
+                for (int i = 0; i < sizes[container]; i++) {
+                    out.writeShort(arrays[container][i]);
+                }
+            }
+        }
+    }
+    
+    public static RegionBitmap read(DataInputStream in) throws IOException {
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown exploration region format " + version);
+        }
+        
+        RegionBitmap region = new RegionBitmap();
+        int used = in.readByte();
+        for (int i = 0; i < used; i++) {
+            int container = in.readByte();
+            boolean bitmap = in.readBoolean();
+            int size = in.readInt();
+            if (container < 0 || container >= CONTAINERS || size < 0 || size > 1 << 16) {
+                throw new IOException("Corrupt exploration region container");
+            }
+            
+            region.sizes[container] = size;
+            if (bitmap) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] = in.readLong();
+                }
+                region.bitmaps[container] = words;
+            } else {
+                short[] values = new short[Math.max(size, 4)];
+                for (int v = 0; v < size; v++) {
+                    values[v] = in.readShort();
+                }
+                region.arrays[container] = values;
+            }
+        }
+        return region;
+    }
+}
@@ -0,0 +1,45 @@
+package com.questlogs.models;
+
+import org.bukkit.Sound;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.logging.Logger;
+
+/**
+ * The config.yml values read while the server runs, parsed once per (re)load.
+ * Immutable, so code holding a snapshot keeps seeing consistent values during a reload.
+ * Values only used at startup (storage type, cache and buffer sizes) are still read directly.
+ */
+public record Settings(
+        int notificationInterval,     // Explored blocks between progress messages, 0 = off
+        boolean showMobProgress,
+        boolean enablePrerequisites,
+        boolean autoGiveRewards,
+        boolean broadcastCompletions,
+        Sound completionSound,        // null = no sound
+        boolean giveQuestbookOnJoin) {
+    
+    public static Settings load(ConfigurationSection config, Logger logger) {
+        return new Settings(
+            Math.max(0, config.getInt("notification-interval", 100)),
+            config.getBoolean("show-mob-progress", true),
+            config.getBoolean("enable-prerequisites", true),
+            config.getBoolean("auto-give-rewards", true),
+            config.getBoolean("broadcast-completions", false),
+            parseSound(config.getString("completion-sound", "ENTITY_PLAYER_LEVELUP"), logger),
+            config.getBoolean("give-questbook-on-join", true));
+    }
+    
+    private static Sound parseSound(String soundName, Logger logger) {
+        if (soundName == null || soundName.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Sound.valueOf(soundName);
+        } catch (IllegalArgumentException e) {
+            // Invalid sound name, skip
+            logger.warning("Invalid completion sound: " + soundName);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.questlogs.models;
+
+import java.util.Map;
+
+/**
+ * Statistic changes a player has made since their stats were last flushed.
+ * The database adds these onto the stored values instead of rewriting everything.
+ */
+public class StatsDelta {
+    
+    private int blocksExplored;
+    private int questsCompleted;
+    private int challengesWon;
+    private int challengesParticipated;
+    private long playtime;
+    private long lastSeen;
+    private long firstSeen; // Only used when the player's row is created
+    
+    // Keyed by Material / EntityType ordinal like PlayerStats
+    private final OrdinalCounter blocksMined = new OrdinalCounter();
+    private final OrdinalCounter blocksBroken = new OrdinalCounter();
+    private final OrdinalCounter blocksPlaced = new OrdinalCounter();
+    private final OrdinalCounter itemsCrafted = new OrdinalCounter();
+    private final OrdinalCounter mobsKilled = new OrdinalCounter();
+    
+    /**
+     * @return true if nothing changed, so the player can be skipped entirely
+     */
+    public boolean isEmpty() {
+        return lastSeen == 0;
+    }
+    
+    /**
+     * Add the changes of a delta that failed to save back into this one
+     */
+    public void merge(StatsDelta other) {
+        blocksExplored += other.blocksExplored;
+        questsCompleted += other.questsCompleted;
+        challengesWon += other.challengesWon;
+        challengesParticipated += other.challengesParticipated;
+        playtime += other.playtime;
+        lastSeen = Math.max(lastSeen, other.lastSeen);
+        if (firstSeen == 0 || (other.firstSeen != 0 && other.firstSeen < firstSeen)) {
+            firstSeen = other.firstSeen;
+        }
+        
+        blocksMined.addAll(other.blocksMined);
+        blocksBroken.addAll(other.blocksBroken);
+        blocksPlaced.addAll(other.blocksPlaced);
+        itemsCrafted.addAll(other.itemsCrafted);
+        mobsKilled.addAll(other.mobsKilled);
+    }
+    
+    // Recorders, called by PlayerStats alongside the in-memory update
+    void addBlocksExplored(int amount) {
+        blocksExplored += amount;
+    }
+    
+    void addQuestsCompleted(int amount) {
+        questsCompleted += amount;
+    }
+    
+    void addChallengesWon(int amount) {
+        challengesWon += amount;
+    }
+    
+    void addChallengesParticipated(int amount) {
+        challengesParticipated += amount;
+    }
+    
+    void addPlaytime(long milliseconds) {
+        playtime += milliseconds;
+    }
+    
+    void setLastSeen(long lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+    
+    void setFirstSeen(long firstSeen) {
+        this.firstSeen = firstSeen;
+    }
+    
+    void addBlockMined(int ordinal, int amount) {
+        blocksMined.add(ordinal, amount);
+    }
+    
+    void addBlockBroken(int ordinal, int amount) {
+        blocksBroken.add(ordinal, amount);
+    }
+    
+    void addBlockPlaced(int ordinal, int amount) {
+        blocksPlaced.add(ordinal, amount);
+    }
+    
+    void addItemCrafted(int ordinal, int amount) {
+        itemsCrafted.add(ordinal, amount);
+    }
+    
+    void addMobKilled(int ordinal, int amount) {
+        mobsKilled.add(ordinal, amount);
+    }
+    
+    // Getters
+    public int getBlocksExplored() {
+        return blocksExplored;
+    }
+    
+    public int getQuestsCompleted() {
+        return questsCompleted;
+    }
+    
+    public int getChallengesWon() {
+        return challengesWon;
+    }
+    
+    public int getChallengesParticipated() {
+        return challengesParticipated;
+    }
+    
+    public long getPlaytime() {
+        return playtime;
+    }
+    
+    public long getLastSeen() {
+        return lastSeen;
+    }
+    
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+    
+    // Converted to names for the database
+    public Map<String, Integer> getBlocksMined() {
+        return blocksMined.toNameMap(PlayerStats.MATERIALS);
+    }
+    
+    public Map<String, Integer> getBlocksBroken() {
+        return blocksBroken.toNameMap(PlayerStats.MATERIALS);
+    }
+    
+    public Map<String, Integer> getBlocksPlaced() {
+        return blocksPlaced.toNameMap(PlayerStats.MATERIALS);
+    }
+    
+    public Map<String, Integer> getItemsCrafted() {
+        return itemsCrafted.toNameMap(PlayerStats.MATERIALS);
+    }
+    
+    public Map<String, Integer> getMobsKilled() {
+        return mobsKilled.toNameMap(PlayerStats.ENTITY_TYPES);
+    }
+}
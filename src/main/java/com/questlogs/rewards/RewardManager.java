@@ -2,7 +2,7 @@ package com.questlogs.rewards;
 
 import com.questlogs.QuestLogsPlugin;
 import com.questlogs.models.Quest;
-import org.bukkit.Material;
+import com.questlogs.models.QuestCatalog;
 import org.bukkit.Sound;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
@@ -29,7 +29,7 @@ public class RewardManager {
      * @return Formatted string of rewards given (e.g., "5x Diamond, 1x Iron Sword")
      */
     public String giveRewards(Player player, Quest quest) {
-        if (!plugin.getConfig().getBoolean("auto-give-rewards", true)) {
+        if (!plugin.getConfigManager().getSettings().autoGiveRewards()) {
             return quest.getReward(); // Return reward string if auto-give is disabled
         }
         
@@ -37,19 +37,18 @@ public class RewardManager {
         
         // Check if quest has structured rewards (new format)
         if (quest.hasStructuredRewards()) {
-            // Use structured rewards
-            for (Map.Entry<String, Integer> entry : quest.getStructuredRewards().entrySet()) {
-                String materialName = entry.getKey();
-                int amount = entry.getValue();
-                
-                try {
-                    Material material = Material.valueOf(materialName.toUpperCase());
-                    if (material != Material.AIR) {
-                        rewards.add(new ItemStack(material, amount));
-                    }
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("Invalid material in structured rewards: " + materialName);
-                }
+            // Use structured rewards, resolved when the quests were loaded
+            List<RewardTemplate> templates = null;
+            QuestCatalog catalog = plugin.getQuestManager().getCatalog();
+            if (catalog.getQuest(quest.getId()) == quest) {
+                templates = catalog.getRewards(quest.getId());
+            }
+            if (templates == null) {
+                // Quest from before a reload, resolve its rewards now
+                templates = RewardTemplate.compile(quest.getId(), quest.getStructuredRewards(), plugin.getLogger());
+            }
+            for (RewardTemplate template : templates) {
+                rewards.add(template.toItemStack());
             }
         } else {
             // Fall back to string-based rewards (old format)
@@ -155,18 +154,10 @@ public class RewardManager {
     }
     
     private void playCompletionSound(Player player) {
-        String soundName = plugin.getConfig().getString("completion-sound", "ENTITY_PLAYER_LEVELUP");
-        
-        if (soundName == null || soundName.trim().isEmpty()) {
-            return;
-        }
-        
-        try {
-            Sound sound = Sound.valueOf(soundName);
+        // Parsed when the config is loaded, null if disabled or invalid
+        Sound sound = plugin.getConfigManager().getSettings().completionSound();
+        if (sound != null) {
             player.playSound(player.getLocation(), sound, 1.0f, 1.0f);
-        } catch (IllegalArgumentException e) {
-            // Invalid sound name, skip
-            plugin.getLogger().warning("Invalid completion sound: " + soundName);
         }
     }
     
@@ -245,7 +236,7 @@ public class RewardManager {
     }
     
     public void broadcastCompletion(Player player, Quest quest) {
-        if (plugin.getConfig().getBoolean("broadcast-completions", false)) {
+        if (plugin.getConfigManager().getSettings().broadcastCompletions()) {
             String message = "§6§l[Quest] §e" + player.getName() + " §7completed §a" + quest.getName() + "§7!";
             plugin.getServer().broadcastMessage(message);
         }
@@ -0,0 +1,39 @@
+package com.questlogs.rewards;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A structured reward with its material already resolved, so giving
+ * rewards doesn't look up material names again on every completion.
+ */
+public record RewardTemplate(Material material, int amount) {
+    
+    public ItemStack toItemStack() {
+        return new ItemStack(material, amount);
+    }
+    
+    /**
+     * Resolve a quest's structured rewards (material name -> amount).
+     * Unknown materials are logged and left out, air is skipped.
+     */
+    public static List<RewardTemplate> compile(String questId, Map<String, Integer> rewards, Logger logger) {
+        List<RewardTemplate> templates = new ArrayList<>(rewards.size());
+        for (Map.Entry<String, Integer> entry : rewards.entrySet()) {
+            Material material = Material.getMaterial(entry.getKey().toUpperCase());
+            if (material == null) {
+                logger.warning("Quest " + questId + " has an invalid reward material: " + entry.getKey());
+                continue;
+            }
+            if (material != Material.AIR) {
+                templates.add(new RewardTemplate(material, entry.getValue()));
+            }
+        }
+        return List.copyOf(templates);
+    }
+}
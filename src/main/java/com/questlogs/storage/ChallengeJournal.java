@@ -0,0 +1,392 @@
+package com.questlogs.storage;
+
+import com.questlogs.models.Challenge;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps running challenges across restarts and crashes. State is a snapshot of
+ * every running challenge plus an append-only journal of what happened since:
+ * challenge starts and ends, and score deltas summed per player between checkpoints.
+ * <pre>
+ *   snapshot.bin   magic, version, generation, challenges with their scores in rank order
+ *   journal.bin    magic, version, generation, then batches of (length, CRC32, records)
+ * </pre>
+ * The journal only counts if its generation matches the snapshot's, so a crash
+ * between writing a snapshot and emptying the journal never counts deltas twice.
+ * A batch cut short by a crash fails its length or CRC check and ends the replay.
+ * The main thread only sums deltas and serializes them at a checkpoint, file
+ * writes and syncs run in order on a single background thread.
+ */
+public class ChallengeJournal {
+    
+    private static final int MAGIC = 0x514C434A; // "QLCJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    
+    private static final byte RECORD_START = 1;
+    private static final byte RECORD_PROGRESS = 2;
+    private static final byte RECORD_END = 3;
+    
+    private final Logger logger;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final ExecutorService ioExecutor;
+    
+    // Challenge -> player -> score gained since the last checkpoint, main thread only
+    private final Map<Challenge, Map<UUID, Long>> pendingDeltas;
+    private ByteArrayOutputStream pendingBytes;
+    private DataOutputStream pending;
+    private long generation; // Of the last snapshot taken
+    
+    private FileChannel journal; // IO thread only
+    private long savedGeneration; // Of the snapshot on disk, IO thread only after load
+    
+    /**
+     * Score a player had or gained, applied in the order they were recorded
+     */
+    public record ScoreDelta(UUID playerId, String playerName, long amount) {
+    }
+    
+    /**
+     * A challenge that was running when the server stopped
+     */
+    public record SavedChallenge(String id, long startTime, int duration, List<ScoreDelta> scores) {
+    }
+    
+    public ChallengeJournal(File directory, Logger logger) {
+        this.logger = logger;
+        this.snapshotFile = new File(directory, "snapshot.bin");
+        this.journalFile = new File(directory, "journal.bin");
+        this.ioExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "QuestLogs-ChallengeJournal"));
+        this.pendingDeltas = new LinkedHashMap<>();
+        resetPending();
+    }
+    
+    private void resetPending() {
+        pendingBytes = new ByteArrayOutputStream();
+        pending = new DataOutputStream(pendingBytes);
+    }
+    
+    /**
+     * Read the snapshot and replay the journal. Call once at startup,
+     * before anything is recorded, and write a snapshot after restoring.
+     * @return Challenges that were running, in start order
+     */
+    public List<SavedChallenge> load() {
+        Map<String, SavedChallenge> challenges = new LinkedHashMap<>();
+        generation = 0;
+        if (snapshotFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                generation = readHeader(in);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    SavedChallenge challenge = new SavedChallenge(in.readUTF(), in.readLong(), in.readInt(), new ArrayList<>());
+                    int players = in.readInt();
+                    for (int p = 0; p < players; p++) {
+                        challenge.scores().add(new ScoreDelta(new UUID(in.readLong(), in.readLong()), in.readUTF(), in.readLong()));
+                    }
+                    challenges.put(challenge.id(), challenge);
+                }
+            } catch (IOException e) {
+                logger.severe("Could not read challenge snapshot, running challenges are lost");
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        }
+        
+        savedGeneration = generation;
+        if (journalFile.exists()) {
+            replayJournal(challenges);
+        }
+        return new ArrayList<>(challenges.values());
+    }
+    
+    private long readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a challenge state file");
+        }
+        return in.readLong();
+    }
+    
+    private void replayJournal(Map<String, SavedChallenge> challenges) {
+        int batches = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (readHeader(in) != generation) {
+                return; // Written before the snapshot, which already has it
+            }
+            while (true) {
+                byte[] batch;
+                try {
+                    int length = in.readInt();
+                    long crc = in.readLong();
+                    if (length < 0 || length > journalFile.length()) {
+                        break;
+                    }
+                    batch = in.readNBytes(length);
+                    if (batch.length < length || crc(batch) != crc) {
+                        break; // Cut short by a crash
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                replayBatch(new DataInputStream(new ByteArrayInputStream(batch)), challenges);
+                batches++;
+            }
+        } catch (IOException e) {
+            logger.warning("Could not read challenge journal past batch " + batches + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    private void replayBatch(DataInputStream in, Map<String, SavedChallenge> challenges) throws IOException {
+        while (in.available() > 0) {
+            byte type = in.readByte();
+            String id = in.readUTF();
+            switch (type) {
+                case RECORD_START:
+                    challenges.put(id, new SavedChallenge(id, in.readLong(), in.readInt(), new ArrayList<>()));
+                    break;
+                case RECORD_PROGRESS:
+                    ScoreDelta delta = new ScoreDelta(new UUID(in.readLong(), in.readLong()), in.readUTF(), in.readLong());
+                    SavedChallenge challenge = challenges.get(id);
+                    if (challenge != null) {
+                        challenge.scores().add(delta);
+                    }
+                    break;
+                case RECORD_END:
+                    challenges.remove(id);
+                    break;
+                default:
+                    throw new IOException("Unknown challenge journal record " + type);
+            }
+        }
+    }
+    
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+    
+    public void recordStart(Challenge challenge) {
+        writePendingDeltas();
+        try {
+            pending.writeByte(RECORD_START);
+            pending.writeUTF(challenge.getId());
+            pending.writeLong(challenge.getStartTime());
+            pending.writeInt(challenge.getDuration());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Writes to a byte array don't fail
+        }
+    }
+    
+    /**
+     * Count score a player gained, it is written at the next checkpoint
+     */
+    public void recordProgress(Challenge challenge, UUID playerId, long amount) {
+        pendingDeltas.computeIfAbsent(challenge, k -> new HashMap<>()).merge(playerId, amount, Long::sum);
+    }
+    
+    public void recordEnd(Challenge challenge) {
+        writePendingDeltas();
+        try {
+            pending.writeByte(RECORD_END);
+            pending.writeUTF(challenge.getId());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private void writePendingDeltas() {
+        try {
+            for (Map.Entry<Challenge, Map<UUID, Long>> entry : pendingDeltas.entrySet()) {
+                Challenge challenge = entry.getKey();
+                for (Map.Entry<UUID, Long> delta : entry.getValue().entrySet()) {
+                    pending.writeByte(RECORD_PROGRESS);
+                    pending.writeUTF(challenge.getId());
+                    writeScore(pending, challenge, delta.getKey(), delta.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        pendingDeltas.clear();
+    }
+    
+    private static void writeScore(DataOutputStream out, Challenge challenge, UUID playerId, long amount) throws IOException {
+        out.writeLong(playerId.getMostSignificantBits());
+        out.writeLong(playerId.getLeastSignificantBits());
+        out.writeUTF(challenge.getPlayerName(playerId));
+        out.writeLong(amount);
+    }
+    
+    /**
+     * Append everything recorded since the last checkpoint to the journal in the background
+     */
+    public void checkpoint() {
+        writePendingDeltas();
+        if (pendingBytes.size() == 0) {
+            return;
+        }
+        byte[] batch = pendingBytes.toByteArray();
+        resetPending();
+        ioExecutor.execute(() -> appendBatch(batch));
+    }
+    
+    /**
+     * Write a snapshot of the running challenges in the background and start an empty journal
+     */
+    public void snapshot(Collection<Challenge> challenges) {
+        checkpoint();
+        generation++;
+        
+        // Serialize here, the main thread keeps adding to the leaderboards
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, generation);
+            out.writeInt(challenges.size());
+            for (Challenge challenge : challenges) {
+                out.writeUTF(challenge.getId());
+                out.writeLong(challenge.getStartTime());
+                out.writeInt(challenge.getDuration());
+                List<Map.Entry<UUID, Long>> scores = challenge.getProgress().top(Integer.MAX_VALUE);
+                out.writeInt(scores.size());
+                for (Map.Entry<UUID, Long> score : scores) {
+                    writeScore(out, challenge, score.getKey(), score.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        
+        byte[] data = bytes.toByteArray();
+        long snapshotGeneration = generation;
+        ioExecutor.execute(() -> writeSnapshot(data, snapshotGeneration));
+    }
+    
+    private static void writeHeader(DataOutputStream out, long generation) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(generation);
+    }
+    
+    private void appendBatch(byte[] batch) {
+        try {
+            if (journal == null) {
+                openJournal();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(12 + batch.length);
+            buffer.putInt(batch.length).putLong(crc(batch)).put(batch).flip();
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            logger.severe("Could not append to challenge journal: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Open the journal for appending. A journal that doesn't follow the snapshot
+     * on disk is started over, the snapshot already has what it holds.
+     */
+    private void openJournal() throws IOException {
+        closeJournal();
+        journalFile.getParentFile().mkdirs();
+        journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        int read = 0;
+        while (header.hasRemaining() && read >= 0) {
+            read = journal.read(header, header.position());
+        }
+        header.flip();
+        boolean follows = header.remaining() == HEADER_BYTES && header.getInt() == MAGIC &&
+            header.getInt() == VERSION && header.getLong() == savedGeneration;
+        if (!follows) {
+            journal.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).putLong(savedGeneration).flip();
+            journal.write(header, 0);
+            journal.force(false);
+        }
+        journal.position(journal.size());
+    }
+    
+    private void writeSnapshot(byte[] data, long snapshotGeneration) {
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            snapshotFile.getParentFile().mkdirs();
+            // Write to a temp file first so a crash never leaves a half-written snapshot
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            // The snapshot has everything the old journal had
+            savedGeneration = snapshotGeneration;
+            openJournal();
+        } catch (IOException e) {
+            logger.severe("Could not save challenge snapshot: " + e.getMessage());
+            e.printStackTrace();
+            closeJournal(); // Reopened on the next append, against whichever snapshot made it to disk
+        }
+    }
+    
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warning("Could not close challenge journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+    
+    /**
+     * Write a final snapshot and wait for all writes to finish
+     */
+    public void shutdown(Collection<Challenge> challenges) {
+        snapshot(challenges);
+        ioExecutor.execute(this::closeJournal);
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("Timed out writing challenge state");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.questlogs.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Player-placed block positions of one 32x32 chunk region, kept in a memory-mapped file
+ * so they cost page cache instead of heap. Layout:
+ * <pre>
+ *   header   magic, version, minY, sections per chunk, used slots (5 ints)
+ *   table    one int per (chunk, 16-high section): slot number + 1, 0 = nothing placed
+ *   slots    512 bytes each, one bit per block of the section
+ * </pre>
+ * A lookup is a table read and a bit test. Slots are only allocated for sections
+ * that have a placed block, the file grows in steps of {@link #GROW_SLOTS} slots.
+ * Not thread-safe, only used from the main thread.
+ */
+public class PlacedBlockRegion {
+    
+    private static final int MAGIC = 0x514C5042; // "QLPB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * 4;
+    private static final int CHUNKS = 32 * 32;
+    private static final int SLOT_BYTES = 16 * 16 * 16 / 8;
+    private static final int GROW_SLOTS = 64;
+    
+    private final File file;
+    private int minY;
+    private int sections;
+    private int usedSlots;
+    private int capacitySlots;
+    private FileChannel channel;
+    private MappedByteBuffer buffer; // null until the first block is placed
+    
+    private PlacedBlockRegion(File file, int minY, int sections) {
+        this.file = file;
+        this.minY = minY;
+        this.sections = sections;
+    }
+    
+    /**
+     * Open the region file if it exists. Without a file nothing is mapped
+     * until a block is placed in the region.
+     * @param minY Lowest block of the world, used for new files
+     * @param sections 16-high sections per chunk, used for new files
+     */
+    public static PlacedBlockRegion open(File file, int minY, int sections) throws IOException {
+        PlacedBlockRegion region = new PlacedBlockRegion(file, minY, sections);
+        if (file.exists()) {
+            region.map();
+        }
+        return region;
+    }
+    
+    private void map() throws IOException {
+        boolean created = !file.exists();
+        if (created) {
+            file.getParentFile().mkdirs();
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        if (created || channel.size() < HEADER_BYTES) {
+            capacitySlots = GROW_SLOTS;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacitySlots));
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, minY);
+            buffer.putInt(12, sections);
+            buffer.putInt(16, 0);
+            usedSlots = 0;
+            return;
+        }
+        
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            channel = null;
+            throw new IOException("Not a placed block region: " + file.getPath());
+        }
+        minY = header.getInt(8);
+        sections = header.getInt(12);
+        usedSlots = header.getInt(16);
+        capacitySlots = (int) Math.max(usedSlots, (channel.size() - tableBytes()) / SLOT_BYTES);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacitySlots));
+    }
+    
+    private long tableBytes() {
+        return HEADER_BYTES + (long) CHUNKS * sections * 4;
+    }
+    
+    private long fileSize(int slots) {
+        return tableBytes() + (long) slots * SLOT_BYTES;
+    }
+    
+    /**
+     * @return Byte offset of the table entry for a block, or -1 if it's outside the stored height
+     */
+    private int tableOffset(int x, int y, int z) {
+        int section = (y - minY) >> 4;
+        if (section < 0 || section >= sections) {
+            return -1;
+        }
+        int chunk = ((z >> 4) & 31) << 5 | ((x >> 4) & 31);
+        return HEADER_BYTES + (chunk * sections + section) * 4;
+    }
+    
+    private static int bitIndex(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+    
+    private long slotOffset(int slot) {
+        return tableBytes() + (long) slot * SLOT_BYTES;
+    }
+    
+    public boolean contains(int x, int y, int z) {
+        if (buffer == null) {
+            return false;
+        }
+        int entry = tableOffset(x, y, z);
+        if (entry < 0) {
+            return false;
+        }
+        int slot = buffer.getInt(entry) - 1;
+        if (slot < 0) {
+            return false;
+        }
+        int bit = bitIndex(x, y, z);
+        int index = (int) (slotOffset(slot) + (bit >>> 3));
+        return (buffer.get(index) & (1 << (bit & 7))) != 0;
+    }
+    
+    public void mark(int x, int y, int z) throws IOException {
+        if (buffer == null) {
+            map();
+        }
+        int entry = tableOffset(x, y, z);
+        if (entry < 0) {
+            return;
+        }
+        
+        int slot = buffer.getInt(entry) - 1;
+        if (slot < 0) {
+            slot = allocateSlot();
+            buffer.putInt(entry, slot + 1);
+        }
+        int bit = bitIndex(x, y, z);
+        int index = (int) (slotOffset(slot) + (bit >>> 3));
+        buffer.put(index, (byte) (buffer.get(index) | (1 << (bit & 7))));
+    }
+    
+    public void clear(int x, int y, int z) {
+        if (buffer == null) {
+            return;
+        }
+        int entry = tableOffset(x, y, z);
+        if (entry < 0) {
+            return;
+        }
+        int slot = buffer.getInt(entry) - 1;
+        if (slot < 0) {
+            return;
+        }
+        int bit = bitIndex(x, y, z);
+        int index = (int) (slotOffset(slot) + (bit >>> 3));
+        buffer.put(index, (byte) (buffer.get(index) & ~(1 << (bit & 7))));
+    }
+    
+    private int allocateSlot() throws IOException {
+        if (usedSlots == capacitySlots) {
+            // Mapping past the end of the file grows it, new slots read as zero
+            capacitySlots += GROW_SLOTS;
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacitySlots));
+        }
+        int slot = usedSlots++;
+        buffer.putInt(16, usedSlots);
+        return slot;
+    }
+    
+    /**
+     * Flush changes to disk and close the file. The mapping is released once
+     * this object is garbage collected.
+     */
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            buffer = null;
+            channel = null;
+        }
+    }
+}
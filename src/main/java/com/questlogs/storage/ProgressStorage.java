@@ -0,0 +1,42 @@
+package com.questlogs.storage;
+
+import com.questlogs.models.PlayerQuestProgress;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Backend that quest progress is persisted to.
+ * Saves and single-player loads are made one at a time, always off the
+ * main thread except for the initial {@link #loadAll()}.
+ */
+public interface ProgressStorage {
+    
+    /**
+     * @return true if players are loaded one at a time when they join,
+     *         false if everything is loaded up front with {@link #loadAll()}
+     */
+    boolean isLazy();
+    
+    /**
+     * Load every stored player. Lazy storages return an empty map.
+     */
+    Map<UUID, PlayerQuestProgress> loadAll();
+    
+    /**
+     * Load a single player, returning empty progress if nothing is stored
+     */
+    PlayerQuestProgress load(UUID playerId);
+    
+    /**
+     * Persist snapshots of changed players. Called off the main thread.
+     * Throws an unchecked exception if a snapshot could not be written and would otherwise be lost.
+     */
+    void save(Collection<PlayerQuestProgress> snapshots);
+    
+    /**
+     * Release any resources held by the storage
+     */
+    void close();
+}
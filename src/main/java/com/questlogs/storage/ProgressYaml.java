@@ -0,0 +1,86 @@
+package com.questlogs.storage;
+
+import com.questlogs.models.PlayerQuestProgress;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads and writes a player's quest progress to a YAML section.
+ * Shared by the single-file and per-player-file storages so both use the same layout.
+ */
+final class ProgressYaml {
+    
+    private ProgressYaml() {
+    }
+    
+    static PlayerQuestProgress read(ConfigurationSection section, UUID playerId) {
+        PlayerQuestProgress progress = new PlayerQuestProgress(playerId);
+        if (section == null) {
+            return progress;
+        }
+        
+        Map<String, Integer> questProgress = new HashMap<>();
+        ConfigurationSection quests = section.getConfigurationSection("quests");
+        if (quests != null) {
+            for (String questId : quests.getKeys(false)) {
+                questProgress.put(questId, quests.getInt(questId));
+            }
+        }
+        progress.setQuestProgress(questProgress);
+        
+        // Block-specific progress for mining quests
+        progress.setBlockProgress(readNested(section.getConfigurationSection("blockProgress")));
+        
+        // Mob kill progress
+        progress.setMobProgress(readNested(section.getConfigurationSection("mobProgress")));
+        
+        return progress;
+    }
+    
+    private static Map<String, Map<String, Integer>> readNested(ConfigurationSection section) {
+        Map<String, Map<String, Integer>> result = new HashMap<>();
+        if (section == null) {
+            return result;
+        }
+        
+        for (String questId : section.getKeys(false)) {
+            Map<String, Integer> counts = new HashMap<>();
+            ConfigurationSection questSection = section.getConfigurationSection(questId);
+            if (questSection != null) {
+                for (String type : questSection.getKeys(false)) {
+                    counts.put(type, questSection.getInt(type));
+                }
+            }
+            result.put(questId, counts);
+        }
+        return result;
+    }
+    
+    /**
+     * Write progress under the given path prefix ("" for the root of the file)
+     */
+    static void write(ConfigurationSection config, String prefix, PlayerQuestProgress progress) {
+        for (Map.Entry<String, Integer> questEntry : progress.getQuestProgress().entrySet()) {
+            config.set(prefix + "quests." + questEntry.getKey(), questEntry.getValue());
+        }
+        
+        // Save block-specific progress for mining quests
+        for (Map.Entry<String, Map<String, Integer>> questBlockEntry : progress.getBlockProgress().entrySet()) {
+            String questId = questBlockEntry.getKey();
+            for (Map.Entry<String, Integer> blockEntry : questBlockEntry.getValue().entrySet()) {
+                config.set(prefix + "blockProgress." + questId + "." + blockEntry.getKey(), blockEntry.getValue());
+            }
+        }
+        
+        // Save mob-specific progress for kill quests
+        for (Map.Entry<String, Map<String, Integer>> questMobEntry : progress.getMobProgress().entrySet()) {
+            String questId = questMobEntry.getKey();
+            for (Map.Entry<String, Integer> mobEntry : questMobEntry.getValue().entrySet()) {
+                config.set(prefix + "mobProgress." + questId + "." + mobEntry.getKey(), mobEntry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.questlogs.storage;
+
+import com.questlogs.models.Quest;
+import com.questlogs.models.QuestType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Parsed quests of each quest file, keyed by the SHA-256 of the file's contents.
+ * A file whose hash matches is taken from here instead of being parsed as YAML
+ * again, and keeps handing out the same Quest objects while it doesn't change.
+ * Stored in a small binary file so unchanged packs are also skipped after a restart.
+ * Safe to use from the parser threads.
+ */
+public class QuestParseCache {
+    
+    private static final int FORMAT_VERSION = 1;
+    
+    private final File file;
+    private final Map<String, Entry> entries; // Source file name -> last parse
+    private boolean dirty;
+    
+    private record Entry(byte[] hash, List<Quest> quests) {
+    }
+    
+    public QuestParseCache(File file) {
+        this.file = file;
+        this.entries = new HashMap<>();
+    }
+    
+    public static byte[] hash(byte[] contents) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(contents);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Every JVM has it
+        }
+    }
+    
+    /**
+     * @return The quests parsed from a file with this hash, or null if it changed since
+     */
+    public synchronized List<Quest> get(String source, byte[] hash) {
+        Entry entry = entries.get(source);
+        return entry != null && Arrays.equals(entry.hash(), hash) ? entry.quests() : null;
+    }
+    
+    public synchronized void put(String source, byte[] hash, List<Quest> quests) {
+        entries.put(source, new Entry(hash, List.copyOf(quests)));
+        dirty = true;
+    }
+    
+    /**
+     * Forget files that no longer exist
+     */
+    public synchronized void retain(Collection<String> sources) {
+        if (entries.keySet().retainAll(sources)) {
+            dirty = true;
+        }
+    }
+    
+    /**
+     * Read the cache file. A missing or unreadable file just means everything gets parsed.
+     * @return false if the file exists but couldn't be read
+     */
+    public synchronized boolean load() {
+        entries.clear();
+        if (!file.exists()) {
+            return true;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                return true; // Written by another version, rebuilt on the next save
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String source = in.readUTF();
+                byte[] hash = new byte[in.readUnsignedByte()];
+                in.readFully(hash);
+                int quests = in.readInt();
+                List<Quest> parsed = new ArrayList<>(quests);
+                for (int q = 0; q < quests; q++) {
+                    parsed.add(readQuest(in));
+                }
+                entries.put(source, new Entry(hash, List.copyOf(parsed)));
+            }
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            entries.clear();
+            return false;
+        }
+    }
+    
+    /**
+     * Write the cache file if anything changed since it was loaded or last saved
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes));
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeByte(entry.getValue().hash().length);
+            out.write(entry.getValue().hash());
+            out.writeInt(entry.getValue().quests().size());
+            for (Quest quest : entry.getValue().quests()) {
+                writeQuest(out, quest);
+            }
+        }
+        out.flush();
+        
+        // Write to a temp file first so a crash never leaves a half-written cache
+        File tempFile = new File(file.getPath() + ".tmp");
+        Files.write(tempFile.toPath(), bytes.toByteArray());
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+    
+    private static void writeQuest(DataOutputStream out, Quest quest) throws IOException {
+        out.writeUTF(quest.getId());
+        out.writeUTF(quest.getName());
+        out.writeUTF(quest.getDescription());
+        out.writeUTF(quest.getType().name());
+        out.writeInt(quest.getTargetAmount());
+        out.writeUTF(quest.getReward());
+        out.writeBoolean(quest.isActive());
+        writeAmounts(out, quest.getBlockTargets());
+        writeAmounts(out, quest.getMobTargets());
+        writeAmounts(out, quest.getStructuredRewards());
+        writeNullable(out, quest.getPrerequisite());
+        out.writeInt(quest.getGuiSlot());
+        writeNullable(out, quest.getGuiIcon());
+        out.writeInt(quest.getXpReward());
+        out.writeInt(quest.getItemEnchantments().size());
+        for (Map.Entry<String, Map<String, Integer>> entry : quest.getItemEnchantments().entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeAmounts(out, entry.getValue());
+        }
+    }
+    
+    private static Quest readQuest(DataInputStream in) throws IOException {
+        Quest quest = new Quest(in.readUTF(), in.readUTF(), in.readUTF(), QuestType.valueOf(in.readUTF()), 
+            in.readInt(), in.readUTF());
+        quest.setActive(in.readBoolean());
+        quest.setBlockTargets(readAmounts(in));
+        quest.setMobTargets(readAmounts(in));
+        quest.setStructuredRewards(readAmounts(in));
+        quest.setPrerequisite(readNullable(in));
+        quest.setGuiSlot(in.readInt());
+        quest.setGuiIcon(readNullable(in));
+        quest.setXpReward(in.readInt());
+        int items = in.readInt();
+        Map<String, Map<String, Integer>> enchantments = new HashMap<>();
+        for (int i = 0; i < items; i++) {
+            enchantments.put(in.readUTF(), readAmounts(in));
+        }
+        quest.setItemEnchantments(enchantments);
+        return quest;
+    }
+    
+    private static void writeAmounts(DataOutputStream out, Map<String, Integer> amounts) throws IOException {
+        out.writeInt(amounts.size());
+        for (Map.Entry<String, Integer> entry : amounts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+    
+    private static Map<String, Integer> readAmounts(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, Integer> amounts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            amounts.put(in.readUTF(), in.readInt());
+        }
+        return amounts;
+    }
+    
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
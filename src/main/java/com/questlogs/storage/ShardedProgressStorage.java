@@ -0,0 +1,94 @@
+package com.questlogs.storage;
+
+import com.questlogs.models.PlayerQuestProgress;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stores each player in their own file under progress/&lt;uuid&gt;.yml.
+ * Players are loaded when they log in, so startup cost and memory
+ * depend on who is online rather than on everyone who ever joined.
+ */
+public class ShardedProgressStorage implements ProgressStorage {
+    
+    private final File directory;
+    private final Logger logger;
+    
+    public ShardedProgressStorage(File directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+        
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+    }
+    
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+    
+    @Override
+    public Map<UUID, PlayerQuestProgress> loadAll() {
+        return Collections.emptyMap();
+    }
+    
+    @Override
+    public PlayerQuestProgress load(UUID playerId) {
+        File file = getFile(playerId);
+        if (!file.exists()) {
+            return new PlayerQuestProgress(playerId);
+        }
+        return ProgressYaml.read(YamlConfiguration.loadConfiguration(file), playerId);
+    }
+    
+    @Override
+    public void save(Collection<PlayerQuestProgress> snapshots) {
+        UncheckedIOException failure = null;
+        for (PlayerQuestProgress snapshot : snapshots) {
+            FileConfiguration config = new YamlConfiguration();
+            ProgressYaml.write(config, "", snapshot);
+            
+            File file = getFile(snapshot.getPlayerId());
+            File tempFile = new File(directory, snapshot.getPlayerId() + ".yml.tmp");
+            try {
+                // Write to a temp file first so a crash never leaves a half-written shard
+                config.save(tempFile);
+                Files.move(tempFile.toPath(), file.toPath(), 
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.severe("Could not save progress for " + snapshot.getPlayerId());
+                e.printStackTrace();
+                if (failure == null) {
+                    failure = new UncheckedIOException("Could not save progress shards", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        
+        // Write the other shards first, then fail so the caller keeps the snapshots for a retry
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    private File getFile(UUID playerId) {
+        return new File(directory, playerId + ".yml");
+    }
+}
@@ -0,0 +1,50 @@
+package com.questlogs.storage;
+
+import com.questlogs.database.DatabaseManager;
+import com.questlogs.models.PlayerQuestProgress;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores quest progress in stats.db next to the player statistics.
+ * Calls wait for the database thread, so they are made off the main thread
+ * except for the occasional offline lookup.
+ * Only the counters that changed since the last save are written, so a
+ * save costs the same no matter how many players have progress stored.
+ */
+public class SqliteProgressStorage implements ProgressStorage {
+    
+    private final DatabaseManager database;
+    
+    public SqliteProgressStorage(DatabaseManager database) {
+        this.database = database;
+    }
+    
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+    
+    @Override
+    public Map<UUID, PlayerQuestProgress> loadAll() {
+        return Collections.emptyMap();
+    }
+    
+    @Override
+    public PlayerQuestProgress load(UUID playerId) {
+        return database.loadQuestProgress(playerId).join();
+    }
+    
+    @Override
+    public void save(Collection<PlayerQuestProgress> snapshots) {
+        database.saveQuestProgressChanges(snapshots).join();
+    }
+    
+    @Override
+    public void close() {
+        // The connection belongs to the StatsManager and is closed with it
+    }
+}
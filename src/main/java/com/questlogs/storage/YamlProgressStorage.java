@@ -0,0 +1,85 @@
+package com.questlogs.storage;
+
+import com.questlogs.models.PlayerQuestProgress;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stores every player in a single progress.yml file.
+ * The parsed file is kept in memory so a save only rebuilds the changed players.
+ */
+public class YamlProgressStorage implements ProgressStorage {
+    
+    private final File progressFile;
+    private final Logger logger;
+    private FileConfiguration progressConfig;
+    
+    public YamlProgressStorage(File progressFile, Logger logger) {
+        this.progressFile = progressFile;
+        this.logger = logger;
+        this.progressConfig = new YamlConfiguration();
+    }
+    
+    @Override
+    public boolean isLazy() {
+        return false;
+    }
+    
+    @Override
+    public Map<UUID, PlayerQuestProgress> loadAll() {
+        Map<UUID, PlayerQuestProgress> result = new HashMap<>();
+        if (!progressFile.exists()) {
+            progressConfig = new YamlConfiguration();
+            return result;
+        }
+        
+        progressConfig = YamlConfiguration.loadConfiguration(progressFile);
+        ConfigurationSection players = progressConfig.getConfigurationSection("players");
+        if (players != null) {
+            for (String uuidString : players.getKeys(false)) {
+                try {
+                    UUID playerId = UUID.fromString(uuidString);
+                    result.put(playerId, ProgressYaml.read(players.getConfigurationSection(uuidString), playerId));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Invalid UUID in progress.yml: " + uuidString);
+                }
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public PlayerQuestProgress load(UUID playerId) {
+        return ProgressYaml.read(progressConfig.getConfigurationSection("players." + playerId), playerId);
+    }
+    
+    @Override
+    public void save(Collection<PlayerQuestProgress> snapshots) {
+        for (PlayerQuestProgress snapshot : snapshots) {
+            String path = "players." + snapshot.getPlayerId();
+            // Replace the player's whole section so removed entries don't linger
+            progressConfig.set(path, null);
+            ProgressYaml.write(progressConfig, path + ".", snapshot);
+        }
+        
+        try {
+            progressConfig.save(progressFile);
+        } catch (IOException e) {
+            logger.severe("Could not save progress file!");
+            e.printStackTrace();
+        }
+    }
+    
+    @Override
+    public void close() {
+    }
+}